@@ -0,0 +1,89 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.builder.SheetBuilder;
+import com.syl.exsilent.model.CellModel;
+import com.syl.exsilent.test.Student;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 构造阶段缓存单元格的内存占用：原有的List<CellModel>与当前的列式缓存对比
+ * 数据逐条生成后即丢弃，模拟数据库游标等数据源，内存中只保留缓存的单元格；
+ * 需通过ExportBenchmarks运行以附加gc及堆内存峰值统计，如-Djmh.args="BufferMemoryBenchmark"
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx4g"})
+public class BufferMemoryBenchmark {
+
+    @Param({"200000"})
+    private int rows;
+
+    private Workbook workbook;
+
+    private CellStyle style;
+
+    @Setup
+    public void setup() {
+        this.workbook = new XSSFWorkbook();
+        this.style = this.workbook.createCellStyle();
+    }
+
+    /**
+     * 逐个单元格创建CellModel
+     */
+    @Benchmark
+    public List<CellModel> cellModels() {
+        List<CellModel> cellModels = new ArrayList<>();
+        Iterator<Student> iterator = this.students();
+        for (int row = 0; iterator.hasNext(); row++) {
+            Student student = iterator.next();
+            String[] values = {student.getIndex(), student.getName(), student.getAge(), student.getGender(),
+                    student.getGrade1(), student.getGrade2(), student.getGrade3()};
+            for (int col = 0; col < values.length; col++) {
+                CellModel cellModel = new CellModel();
+                cellModel.setValue(values[col]);
+                cellModel.setStyle(this.style);
+                cellModel.setRowNum(row);
+                cellModel.setColNum(col);
+                cellModels.add(cellModel);
+            }
+        }
+        return cellModels;
+    }
+
+    /**
+     * SheetBuilder的列式缓存，只追加不构建
+     */
+    @Benchmark
+    public SheetBuilder cellBuffer() {
+        SheetBuilder sheetBuilder = new ExcelBuilder(ExcelType.XLSX).sheetBuilder("一年级学生信息");
+        sheetBuilder.append(this.students(), Student.class);
+        return sheetBuilder;
+    }
+
+    /**
+     * 逐条生成的学生数据，字段值均为新建的字符串实例
+     */
+    private Iterator<Student> students() {
+        return IntStream.range(0, this.rows).mapToObj(i -> Student.builder()
+                .index(String.valueOf(i + 1)).name("学生" + i).age(String.valueOf(15 + i % 3))
+                .gender(new String(i % 2 == 0 ? "男" : "女")).grade1(String.valueOf(60 + i % 40))
+                .grade2(String.valueOf(60 + i % 37)).grade3(String.valueOf(60 + i % 31)).build()).iterator();
+    }
+}
@@ -0,0 +1,57 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.builder.CsvBuilder;
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.test.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * csv与流式xlsx导出对比
+ * 相同数据逐条生成后分别导出为csv及流式xlsx，输出均丢弃
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx4g"})
+public class CsvBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    /**
+     * csv
+     */
+    @Benchmark
+    public void csv() {
+        try (CsvBuilder csvBuilder = new CsvBuilder(CsvBuilder.Format.CSV, Channels.newChannel(OutputStream.nullOutputStream()))) {
+            csvBuilder.append(this.students(), Student.class);
+        }
+    }
+
+    /**
+     * 流式xlsx
+     */
+    @Benchmark
+    public ExcelBuilder xlsxStreaming() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelType.XLSX_STREAMING);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.students(), Student.class);
+        excelBuilder.writeAndClose(OutputStream.nullOutputStream());
+        return excelBuilder;
+    }
+
+    private Stream<Student> students() {
+        return IntStream.range(0, this.rows).mapToObj(i -> Student.builder().index(String.valueOf(i)).name("学生" + i).age("16")
+                .gender(i % 2 == 0 ? "男" : "女").grade1("75").grade2("85").grade3("89").build());
+    }
+}
@@ -0,0 +1,94 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.test.Student;
+import com.syl.exsilent.test.StudentExcel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出流程基准测试
+ * Student包含嵌套表头，StudentExcel以模块形式包含标题及Student列表；
+ * 各方法的一次调用都从新建ExcelBuilder开始，未输出的workbook通过abort释放
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx8g"})
+public class ExportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"XLS", "XLSX", "XLSX_STREAMING", "XLSX_DIRECT"})
+    private ExcelType excelType;
+
+    private List<Student> students;
+
+    private StudentExcel studentExcel;
+
+    @Setup
+    public void setup() {
+        this.students = new ArrayList<>(this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            this.students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age(String.valueOf(15 + i % 4))
+                    .gender(i % 2 == 0 ? "男" : "女").grade1(String.valueOf(60 + i % 41)).grade2(String.valueOf(55 + i % 46))
+                    .grade3(i % 10 == 0 ? null : String.valueOf(70 + i % 31)).build());
+        }
+        this.studentExcel = StudentExcel.builder().title("一年级学生信息").students(this.students).build();
+    }
+
+    /**
+     * 追加列表
+     */
+    @Benchmark
+    public ExcelBuilder appendList() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(this.excelType);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.students);
+        excelBuilder.abort();
+        return excelBuilder;
+    }
+
+    /**
+     * 追加模块
+     */
+    @Benchmark
+    public ExcelBuilder appendModel() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(this.excelType);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.studentExcel);
+        excelBuilder.abort();
+        return excelBuilder;
+    }
+
+    /**
+     * 追加列表并构建
+     */
+    @Benchmark
+    public ExcelBuilder build() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(this.excelType);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.students);
+        excelBuilder.build();
+        excelBuilder.abort();
+        return excelBuilder;
+    }
+
+    /**
+     * 追加列表、构建并输出
+     */
+    @Benchmark
+    public ExcelBuilder writeAndClose() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(this.excelType);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.students);
+        excelBuilder.writeAndClose(OutputStream.nullOutputStream());
+        return excelBuilder;
+    }
+}
@@ -0,0 +1,32 @@
+package com.syl.exsilent.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 默认运行全部导出基准并附加gc及堆内存峰值统计，命令行参数与JMH一致，如：
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="-p rows=1000 -p excelType=XLSX_DIRECT ExportBenchmark.build"
+ * 其他基准按类名指定，如-Djmh.args="FieldAccessorBenchmark"
+ *
+ * @since 2023.6.23
+ */
+public class ExportBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(ExportBenchmark.class.getSimpleName());
+        }
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .addProfiler(PeakHeapProfiler.class)
+                .parent(commandLine)
+                .build();
+        new Runner(options).run();
+    }
+}
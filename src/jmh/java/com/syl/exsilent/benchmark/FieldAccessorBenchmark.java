@@ -0,0 +1,61 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.test.Student;
+import com.syl.exsilent.util.ExcelUtil;
+import com.syl.exsilent.util.FieldAccessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字段取值基准测试
+ * 每次调用读取Student的全部7个字段：原有方式每次查找getter并反射调用，当前方式使用按类缓存的字段取值器
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldAccessorBenchmark {
+
+    private static final String[] FIELDS = {"index", "name", "age", "gender", "grade1", "grade2", "grade3"};
+
+    private Student student;
+
+    private FieldAccessor[] accessors;
+
+    @Setup
+    public void setup() {
+        this.student = Student.builder().index("1").name("张三").age("16").gender("男").grade1("75").grade2("85").grade3("89").build();
+        this.accessors = new FieldAccessor[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            this.accessors[i] = FieldAccessor.of(Student.class, FIELDS[i]);
+        }
+    }
+
+    /**
+     * 原有取值方式
+     */
+    @Benchmark
+    public void reflect(Blackhole blackhole) throws Exception {
+        for (String field : FIELDS) {
+            Method method = Student.class.getDeclaredMethod(ExcelUtil.getGetter(field));
+            blackhole.consume(method.invoke(this.student));
+        }
+    }
+
+    /**
+     * 字段取值器
+     */
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (FieldAccessor accessor : this.accessors) {
+            blackhole.consume(accessor.get(this.student));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.test.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直写类型多工作表并行构建基准测试
+ * 关闭增量输出，数据缓存至构建时写出；每次调用追加sheets个工作表后构建，追加部分两者相同，
+ * serial与parallel的差异即构建阶段并行的收益，加速比受限于CPU核数
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class ParallelBuildBenchmark {
+
+    @Param({"8"})
+    private int sheets;
+
+    @Param({"50000"})
+    private int rows;
+
+    private List<Student> students;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        this.students = new ArrayList<>(this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            this.students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16")
+                    .gender(i % 2 == 0 ? "男" : "女").grade1("75").grade2("85").grade3("89").build());
+        }
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * 串行构建
+     */
+    @Benchmark
+    public ExcelBuilder serial() {
+        return this.build(new ExcelBuilder(ExcelType.XLSX_DIRECT));
+    }
+
+    /**
+     * 并行构建
+     */
+    @Benchmark
+    public ExcelBuilder parallel() {
+        return this.build(new ExcelBuilder(ExcelType.XLSX_DIRECT).parallelBuild(this.executor));
+    }
+
+    private ExcelBuilder build(ExcelBuilder excelBuilder) {
+        for (int i = 0; i < this.sheets; i++) {
+            excelBuilder.sheetBuilder("学生" + i).incremental(false).append(this.students);
+        }
+        excelBuilder.build();
+        excelBuilder.abort();
+        return excelBuilder;
+    }
+}
@@ -0,0 +1,53 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.builder.ExcelReader;
+import com.syl.exsilent.test.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 大文件读取基准测试
+ * 逐批处理不持有实例，读取过程中堆内存不随行数增长，可对比不同行数下的堆内存峰值
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms256m", "-Xmx1g"})
+public class ReadBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        this.file = File.createTempFile("exsilent-read-benchmark", ".xlsx");
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelType.XLSX_DIRECT);
+        excelBuilder.sheetBuilder("一年级学生信息").append(IntStream.range(0, this.rows).mapToObj(i -> Student.builder()
+                .index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                .grade1("75").grade2("85").grade3("89").build()), Student.class);
+        excelBuilder.writeAndClose(this.file);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    @Benchmark
+    public long read() {
+        return new ExcelReader<>(Student.class).read(this.file, batch -> {
+        });
+    }
+}
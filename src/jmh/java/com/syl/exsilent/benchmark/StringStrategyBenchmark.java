@@ -0,0 +1,57 @@
+package com.syl.exsilent.benchmark;
+
+import com.syl.exsilent.annontion.StringStrategy;
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.test.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 各字符串存储策略构建阶段的内存占用
+ * 各列的值均唯一，共享字符串表无法复用字符串；构建完成后放弃写出，堆内存峰值即构建阶段的占用，
+ * 需通过ExportBenchmarks运行以附加gc及堆内存峰值统计，如-Djmh.args="StringStrategyBenchmark"
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx4g"})
+public class StringStrategyBenchmark {
+
+    @Param({"XLSX", "XLSX_STREAMING"})
+    private ExcelType excelType;
+
+    @Param({"SST", "INLINE"})
+    private StringStrategy stringStrategy;
+
+    @Param({"20000"})
+    private int rows;
+
+    /**
+     * 构建后放弃
+     */
+    @Benchmark
+    public ExcelBuilder build() {
+        ExcelBuilder excelBuilder = new ExcelBuilder(this.excelType, this.stringStrategy);
+        excelBuilder.sheetBuilder("一年级学生信息").append(this.uniqueStudents(), Student.class);
+        excelBuilder.build();
+        excelBuilder.abort();
+        return excelBuilder;
+    }
+
+    /**
+     * 各字段值均唯一的学生数据
+     */
+    private Iterator<Student> uniqueStudents() {
+        return IntStream.range(0, this.rows).mapToObj(i -> Student.builder()
+                .index("编号" + i).name("学生" + i).age("年龄" + i).gender("性别" + i)
+                .grade1("语文" + i).grade2("数学" + i).grade3("英语" + i).build()).iterator();
+    }
+}
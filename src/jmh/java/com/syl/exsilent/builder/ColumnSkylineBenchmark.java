@@ -0,0 +1,66 @@
+package com.syl.exsilent.builder;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各列待插入行数记录方式的基准测试
+ * 每次调用追加一行7个单元格，与SheetBuilder逐个单元格的操作相同：读取列的待插入行，再将该列加1行；
+ * 状态在调用间保留，行号很快超出Integer缓存范围。分配量见gc.alloc.rate.norm（B/op，即每行）
+ * 与ColumnSkyline同包以访问包内可见的方法
+ *
+ * @since 2023.6.23
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnSkylineBenchmark {
+
+    private static final int COLS = 7;
+
+    private ConcurrentHashMap<Integer, Integer> colRowMap;
+
+    private ColumnSkyline skyline;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.colRowMap = new ConcurrentHashMap<>();
+        this.skyline = new ColumnSkyline();
+    }
+
+    /**
+     * 原有的列-行号map
+     */
+    @Benchmark
+    public int colRowMap() {
+        int sum = 0;
+        for (int col = 0; col < COLS; col++) {
+            if (this.colRowMap.containsKey(col)) {
+                sum += this.colRowMap.get(col);
+            } else {
+                this.colRowMap.put(col, 0);
+            }
+            this.colRowMap.putIfAbsent(col, 0);
+            this.colRowMap.computeIfPresent(col, (k, v) -> v + 1);
+        }
+        return sum;
+    }
+
+    /**
+     * 基本类型数组
+     */
+    @Benchmark
+    public int skyline() {
+        int sum = 0;
+        for (int col = 0; col < COLS; col++) {
+            sum += this.skyline.get(col);
+            this.skyline.add(col, 1, 1);
+        }
+        return sum;
+    }
+}
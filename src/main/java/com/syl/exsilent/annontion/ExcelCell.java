@@ -64,4 +64,14 @@ public @interface ExcelCell {
      * 是否斜体
      */
     boolean fontItalic() default false;
+    /**
+     * 数据格式，如"0.00"、"#,##0"、"yyyy-mm-dd"，为空时数值、布尔值使用常规格式，
+     * 日期使用"yyyy-mm-dd"（LocalDate）或"yyyy-mm-dd hh:mm:ss"
+     * 数值、日期、布尔值字段写入对应类型的单元格，其他类型按字符串写入
+     */
+    String format() default "";
+    /**
+     * 字符串存储策略，仅对非流式xlsx生效，见{@link StringStrategy}
+     */
+    StringStrategy stringStrategy() default StringStrategy.DEFAULT;
 }
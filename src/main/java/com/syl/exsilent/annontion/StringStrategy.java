@@ -0,0 +1,31 @@
+package com.syl.exsilent.annontion;
+
+/**
+ * 字符串存储策略
+ * 决定xlsx中字符串单元格写入共享字符串表还是直接内联在单元格中：
+ * 共享字符串表对重复值只保存一份，但整表常驻内存，唯一值较多的列（编号、姓名、地址）会使其急剧膨胀；
+ * 内联字符串不占用workbook级内存，但重复值会在每个单元格中重复输出
+ * xls格式只能使用共享字符串表，忽略该策略
+ *
+ * @see ExcelCell#stringStrategy()
+ * @since 2023.6.23
+ */
+public enum StringStrategy {
+    /**
+     * 列级别表示沿用workbook策略；workbook级别表示沿用excel类型的默认方式：xlsx使用共享字符串表，流式xlsx使用内联字符串
+     */
+    DEFAULT,
+    /**
+     * 写入共享字符串表
+     */
+    SST,
+    /**
+     * 内联字符串
+     */
+    INLINE,
+    /**
+     * 按列采样字符串的重复程度自动选择，重复值多的列写入共享字符串表，其余列内联
+     * 流式xlsx无法按列区分，作为workbook策略时等同于INLINE
+     */
+    AUTO
+}
@@ -0,0 +1,209 @@
+package com.syl.exsilent.builder;
+
+import java.util.Arrays;
+
+/**
+ * 单元格缓存
+ * 按列式存储：行号、列号、样式下标、值编号各占一个基本类型数组，单元格本身不产生对象；
+ * 值通过{@link ValuePool}去重，相同的值只保存一份
+ * 非线程安全，由SheetBuilder在持有锁时访问
+ *
+ * @since 2023.6.23
+ */
+final class CellBuffer {
+    /**
+     * 初始容量
+     */
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * 行号
+     */
+    private int[] rows;
+    /**
+     * 列号
+     */
+    private int[] cols;
+    /**
+     * 样式下标，见{@link StyleRegistry#styleAt(short)}
+     */
+    private short[] styles;
+    /**
+     * 值编号，见{@link ValuePool#get(int)}
+     */
+    private int[] values;
+    /**
+     * 单元格数量
+     */
+    private int size = 0;
+    /**
+     * 值池
+     */
+    private ValuePool pool;
+
+    CellBuffer() {
+        this(INITIAL_CAPACITY, new ValuePool());
+    }
+
+    private CellBuffer(int capacity, ValuePool pool) {
+        this.rows = new int[capacity];
+        this.cols = new int[capacity];
+        this.styles = new short[capacity];
+        this.values = new int[capacity];
+        this.pool = pool;
+    }
+
+    /**
+     * 新增单元格
+     *
+     * @param row   行号
+     * @param col   列号
+     * @param style 样式下标
+     * @param value 值
+     */
+    void add(int row, int col, short style, Object value) {
+        this.add(row, col, style, this.pool.intern(value));
+    }
+
+    private void add(int row, int col, short style, int valueId) {
+        int i = this.size;
+        if (i == this.rows.length) {
+            this.grow();
+        }
+        this.rows[i] = row;
+        this.cols[i] = col;
+        this.styles[i] = style;
+        this.values[i] = valueId;
+        this.size = i + 1;
+    }
+
+    /**
+     * 新增另一缓存中的全部单元格
+     *
+     * @param other     另一缓存
+     * @param rowOffset 行号偏移量
+     */
+    void addAll(CellBuffer other, int rowOffset) {
+        for (int i = 0; i < other.size; i++) {
+            this.add(other.rows[i] + rowOffset, other.cols[i], other.styles[i], other.value(i));
+        }
+    }
+
+    /**
+     * 取出行号小于watermark的单元格，按行号升序排列，行内保持新增顺序
+     *
+     * @param watermark 行号上限（不含）
+     * @return 取出的单元格
+     */
+    CellBuffer drain(int watermark) {
+        int count = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.rows[i] < watermark) {
+                count++;
+            }
+        }
+        CellBuffer drained;
+        if (count == 0) {
+            return new CellBuffer(0, this.pool);
+        }
+        if (count == this.size) {
+            // 全部取出，直接移交数组及值池
+            drained = new CellBuffer(0, this.pool);
+            drained.rows = this.rows;
+            drained.cols = this.cols;
+            drained.styles = this.styles;
+            drained.values = this.values;
+            drained.size = this.size;
+            this.rows = new int[INITIAL_CAPACITY];
+            this.cols = new int[INITIAL_CAPACITY];
+            this.styles = new short[INITIAL_CAPACITY];
+            this.values = new int[INITIAL_CAPACITY];
+            this.size = 0;
+            this.pool = new ValuePool();
+        } else {
+            // 取出的单元格沿用原值池，剩余单元格迁移至新值池，使值池不随已输出的数据增长
+            drained = new CellBuffer(count, this.pool);
+            ValuePool pool = new ValuePool();
+            int remaining = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.rows[i] < watermark) {
+                    drained.add(this.rows[i], this.cols[i], this.styles[i], this.values[i]);
+                } else {
+                    this.rows[remaining] = this.rows[i];
+                    this.cols[remaining] = this.cols[i];
+                    this.styles[remaining] = this.styles[i];
+                    this.values[remaining] = pool.intern(this.value(i));
+                    remaining++;
+                }
+            }
+            this.size = remaining;
+            this.pool = pool;
+        }
+        drained.sortByRow();
+        return drained;
+    }
+
+    /**
+     * 按行号稳定排序，已有序时不做任何操作
+     */
+    private void sortByRow() {
+        int i = 1;
+        while (i < this.size && this.rows[i - 1] <= this.rows[i]) {
+            i++;
+        }
+        if (i >= this.size) {
+            return;
+        }
+        // 高32位为行号、低32位为原下标，排序结果即稳定排序
+        long[] keys = new long[this.size];
+        for (i = 0; i < this.size; i++) {
+            keys[i] = (long) this.rows[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[this.size];
+        int[] cols = new int[this.size];
+        short[] styles = new short[this.size];
+        int[] values = new int[this.size];
+        for (i = 0; i < this.size; i++) {
+            int from = (int) keys[i];
+            rows[i] = this.rows[from];
+            cols[i] = this.cols[from];
+            styles[i] = this.styles[from];
+            values[i] = this.values[from];
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.styles = styles;
+        this.values = values;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, this.rows.length + (this.rows.length >> 1));
+        this.rows = Arrays.copyOf(this.rows, capacity);
+        this.cols = Arrays.copyOf(this.cols, capacity);
+        this.styles = Arrays.copyOf(this.styles, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    /**
+     * @return 单元格数量
+     */
+    int size() {
+        return this.size;
+    }
+
+    int row(int i) {
+        return this.rows[i];
+    }
+
+    int col(int i) {
+        return this.cols[i];
+    }
+
+    short style(int i) {
+        return this.styles[i];
+    }
+
+    Object value(int i) {
+        return this.pool.get(this.values[i]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.syl.exsilent.builder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * 文件通道输出流
+ * 写入的数据先复制到堆外缓冲区，缓冲区满后整块写入通道；堆内数组直接写入通道时JDK会先复制到临时的堆外缓冲区，
+ * 在此处复制可省去这次复制及临时缓冲区的分配。关闭时写出剩余数据，按需强制落盘后关闭通道
+ * 非线程安全
+ *
+ * @since 2023.6.23
+ */
+final class ChannelOutputStream extends OutputStream {
+    /**
+     * 文件通道
+     */
+    private final FileChannel channel;
+    /**
+     * 堆外缓冲区
+     */
+    private final ByteBuffer buffer;
+    /**
+     * 关闭前是否强制落盘
+     */
+    private final boolean fsync;
+    /**
+     * 是否已关闭
+     */
+    private boolean closed = false;
+
+    ChannelOutputStream(FileChannel channel, int bufferSize, boolean fsync) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.fsync = fsync;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            this.drain();
+        }
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        while (len > 0) {
+            if (!this.buffer.hasRemaining()) {
+                this.drain();
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 将缓冲区数据写入通道，不强制落盘
+     */
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try (FileChannel channel = this.channel) {
+            this.drain();
+            if (this.fsync) {
+                channel.force(true);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,238 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.annontion.*;
+import com.syl.exsilent.builder.SheetBuilder.CommonParam;
+import com.syl.exsilent.util.FieldAccessor;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * 类布局元数据
+ * 解析注解类得到的表头层级、排序后的单元格参数、模块参数及列宽行高，
+ * 按类缓存且不可变，JVM内所有workbook的append共享同一份
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+@Getter(AccessLevel.PACKAGE)
+final class ClassLayout {
+    /**
+     * 类布局缓存
+     */
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
+    /**
+     * 类
+     */
+    private final Class<?> type;
+    /**
+     * 表头块列表，按序号排序
+     */
+    private final List<HeaderBlock> headers;
+    /**
+     * 数据单元格参数列表，按序号排序
+     */
+    private final List<CommonParam> cells;
+    /**
+     * 表头模板
+     */
+    private final HeaderTemplate headerTemplate;
+    /**
+     * 表头占用的行数，无表头时为0
+     */
+    private final int headerHeight;
+    /**
+     * 单条数据占用的行数，即数据单元格中最大的行数
+     */
+    private final int recordHeight;
+    /**
+     * 模块参数列表，按序号排序
+     */
+    private final List<CommonParam> modules;
+    /**
+     * 列宽、行高数据
+     */
+    private final ExcelMeasure measure;
+
+    private ClassLayout(Class<?> type) {
+        this.type = type;
+        Field[] fields = type.getDeclaredFields();
+        this.headers = resolveHeaders(fields);
+        this.headerTemplate = HeaderTemplate.of(this.headers);
+        this.headerHeight = this.headerTemplate.height();
+        this.cells = resolveParams(type, fields, ExcelCell.class);
+        this.recordHeight = this.cells.stream().mapToInt(CommonParam::getRowCount).max().orElse(0);
+        this.modules = resolveParams(type, fields, ExcelModule.class);
+        this.measure = type.getAnnotation(ExcelMeasure.class);
+    }
+
+    /**
+     * 获取类的布局
+     *
+     * @param type 类
+     * @return 缓存的布局
+     */
+    static ClassLayout of(Class<?> type) {
+        return LAYOUTS.get(type);
+    }
+
+    /**
+     * 将层级表头拼接为各数据单元格的平铺表头名称，如"成绩/语文"
+     * 表头列号的推进方式与写入工作表时一致，数据单元格取其起始列上自上而下的表头名称
+     *
+     * @param separator 层级分隔符
+     * @return 与数据单元格参数列表一一对应的表头名称
+     */
+    List<String> flatHeaderNames(String separator) {
+        Map<Integer, StringBuilder> columnNames = new HashMap<>();
+        int colNum = 0;
+        for (HeaderBlock block : this.headers) {
+            for (List<CommonParam> tier : block.getTiers()) {
+                int localColNum = colNum;
+                for (CommonParam param : tier) {
+                    for (int col = colNum; col < colNum + param.getColCount(); col++) {
+                        StringBuilder name = columnNames.computeIfAbsent(col, k -> new StringBuilder());
+                        if (name.length() > 0) {
+                            name.append(separator);
+                        }
+                        name.append(param.getName());
+                    }
+                    colNum += param.getColCount();
+                }
+                if (block.isNested()) {
+                    colNum = localColNum;
+                }
+            }
+        }
+        List<String> names = new ArrayList<>(this.cells.size());
+        colNum = 0;
+        for (CommonParam param : this.cells) {
+            StringBuilder name = columnNames.get(colNum);
+            names.add(name == null ? "" : name.toString());
+            colNum += param.getColCount();
+        }
+        return names;
+    }
+
+    /**
+     * 解析表头。按序号排序，过滤未注解字段
+     *
+     * @param fields 类字段
+     * @return 表头块列表
+     */
+    private static List<HeaderBlock> resolveHeaders(Field[] fields) {
+        List<Map.Entry<Integer, HeaderBlock>> blocks = new ArrayList<>();
+        for (Field f : fields) {
+            ExcelField excelField = f.getAnnotation(ExcelField.class);
+            ExcelFields excelFields = f.getAnnotation(ExcelFields.class);
+            if (excelFields == null && excelField == null) {
+                continue;
+            }
+            if (excelFields != null && excelField != null) {
+                log.warn("@excelField and @excelFields can not be used together");
+            }
+            if (excelFields != null) {
+                Optional<ExcelField> minOne = Arrays.stream(excelFields.value()).min(Comparator.comparing(ExcelField::parent));
+                minOne.ifPresent(m -> blocks.add(Map.entry(m.index(), nested(excelFields))));
+            } else {
+                CommonParam param = CommonParam.fromXlsField(excelField);
+                blocks.add(Map.entry(excelField.index(), new HeaderBlock(List.of(List.of(param)), false)));
+            }
+        }
+        return blocks.stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    /**
+     * 解析嵌套表头，按层级拆分
+     *
+     * @param excelFields 嵌套表头注解参数
+     * @return 表头块
+     */
+    private static HeaderBlock nested(ExcelFields excelFields) {
+        ExcelField[] excelFieldArr = excelFields.value();
+        Arrays.sort(excelFieldArr, Comparator.comparingInt(ExcelField::parent));
+        if (excelFieldArr[0].parent() != -1) {
+            log.warn("hierarchical fields without root");
+            return new HeaderBlock(List.of(), true);
+        }
+        Map<Integer, List<CommonParam>> tierMap = new TreeMap<>();
+        Map<Integer, Integer> indexTierMap = new HashMap<>();
+        for (ExcelField excelField : excelFieldArr) {
+            if (excelField.parent() == -1) {
+                indexTierMap.put(excelField.index(), 0);
+            } else {
+                Integer parentTier = indexTierMap.get(excelField.parent());
+                if (parentTier == null) {
+                    log.warn("hierarchical fields index set illegally,{} has not parent", excelField.name());
+                } else {
+                    indexTierMap.put(excelField.index(), parentTier + 1);
+                }
+            }
+        }
+        for (ExcelField excelField : excelFieldArr) {
+            Integer tier = indexTierMap.get(excelField.index());
+            if (tier != null) {
+                tierMap.computeIfAbsent(tier, k -> new ArrayList<>()).add(CommonParam.fromXlsField(excelField));
+            }
+        }
+        List<List<CommonParam>> tiers = tierMap.values().stream().map(List::copyOf).toList();
+        return new HeaderBlock(tiers, true);
+    }
+
+    /**
+     * 解析数据单元格或模块参数，按序号排序
+     *
+     * @param type       类
+     * @param fields     类字段
+     * @param annotation 注解类型，ExcelCell或ExcelModule
+     * @return 参数列表
+     */
+    private static List<CommonParam> resolveParams(Class<?> type, Field[] fields, Class<?> annotation) {
+        List<CommonParam> params = new ArrayList<>();
+        for (Field f : fields) {
+            CommonParam param;
+            if (annotation == ExcelCell.class) {
+                ExcelCell excelCell = f.getAnnotation(ExcelCell.class);
+                param = excelCell == null ? null : CommonParam.fromXlsCell(excelCell);
+            } else {
+                ExcelModule excelModule = f.getAnnotation(ExcelModule.class);
+                param = excelModule == null ? null : CommonParam.fromXlsModule(excelModule);
+            }
+            if (param == null) {
+                continue;
+            }
+            params.add(param.toBuilder().fieldName(f.getName()).accessor(FieldAccessor.of(type, f.getName())).build());
+        }
+        params.sort(Comparator.comparing(CommonParam::getIndex));
+        return List.copyOf(params);
+    }
+
+    /**
+     * 表头块
+     * 普通表头只有一层一个参数；嵌套表头每一层写完后列号回到块起始列
+     */
+    @Value
+    static class HeaderBlock {
+        /**
+         * 各层表头参数
+         */
+        List<List<CommonParam>> tiers;
+        /**
+         * 是否为嵌套表头
+         */
+        boolean nested;
+    }
+}
@@ -0,0 +1,153 @@
+package com.syl.exsilent.builder;
+
+import java.util.Arrays;
+
+/**
+ * 列天际线
+ * 记录每列下一个待插入数据的行号，列号即数组下标，取值和区间更新均无装箱、无哈希。
+ * 列总是从0开始连续使用，宽度上限为xlsx的16384列，区间更新及最值查询直接遍历连续的int数组，
+ * 在该规模下比线段树更快；行号只增不减，最大值随更新维护，查询为O(1)
+ * 非线程安全，由SheetBuilder在持有锁时访问
+ *
+ * @since 2023.6.23
+ */
+final class ColumnSkyline {
+    /**
+     * 各列待插入行号
+     */
+    private int[] rows = new int[16];
+    /**
+     * 已使用的列数
+     */
+    private int width = 0;
+    /**
+     * 所有列中最大的待插入行号
+     */
+    private int max = 0;
+
+    /**
+     * 获取列的待插入行号
+     *
+     * @param col 列号
+     * @return 待插入行号
+     */
+    int get(int col) {
+        this.ensureWidth(col + 1);
+        return this.rows[col];
+    }
+
+    /**
+     * 区间内各列的待插入行号增加指定行数
+     *
+     * @param fromCol  起始列
+     * @param colCount 列数
+     * @param rowCount 增加的行数
+     */
+    void add(int fromCol, int colCount, int rowCount) {
+        int toCol = fromCol + colCount;
+        this.ensureWidth(toCol);
+        int[] rows = this.rows;
+        for (int i = fromCol; i < toCol; i++) {
+            rows[i] += rowCount;
+            if (rows[i] > this.max) {
+                this.max = rows[i];
+            }
+        }
+    }
+
+    /**
+     * 各列的待插入行号依次增加指定行数
+     *
+     * @param heights 从第0列开始各列增加的行数
+     */
+    void add(int[] heights) {
+        this.ensureWidth(heights.length);
+        int[] rows = this.rows;
+        for (int i = 0; i < heights.length; i++) {
+            rows[i] += heights[i];
+            if (rows[i] > this.max) {
+                this.max = rows[i];
+            }
+        }
+    }
+
+    /**
+     * 判断前width列的待插入行号是否相同，未使用的列视为0
+     *
+     * @param width 列数
+     * @return 相同的待插入行号，不相同时为-1
+     */
+    int flatRow(int width) {
+        if (width == 0) {
+            return 0;
+        }
+        int[] rows = this.rows;
+        int row = this.width > 0 ? rows[0] : 0;
+        for (int i = 1; i < width; i++) {
+            if ((i < this.width ? rows[i] : 0) != row) {
+                return -1;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * 将前width列的待插入行号提升至不小于指定行号
+     *
+     * @param width 列数
+     * @param row   行号
+     */
+    void raise(int width, int row) {
+        this.ensureWidth(width);
+        int[] rows = this.rows;
+        for (int i = 0; i < this.width; i++) {
+            if (rows[i] < row) {
+                rows[i] = row;
+            }
+        }
+        if (this.width > 0 && row > this.max) {
+            this.max = row;
+        }
+    }
+
+    /**
+     * @return 所有已使用列中最小的待插入行号，即所有列均已越过的行
+     */
+    int min() {
+        if (this.width == 0) {
+            return 0;
+        }
+        int[] rows = this.rows;
+        int min = rows[0];
+        for (int i = 1; i < this.width; i++) {
+            if (rows[i] < min) {
+                min = rows[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return 所有已使用列中最大的待插入行号
+     */
+    int max() {
+        return this.max;
+    }
+
+    /**
+     * @return 已使用的列数
+     */
+    int width() {
+        return this.width;
+    }
+
+    private void ensureWidth(int width) {
+        if (width <= this.width) {
+            return;
+        }
+        if (width > this.rows.length) {
+            this.rows = Arrays.copyOf(this.rows, Math.max(width, this.rows.length << 1));
+        }
+        this.width = width;
+    }
+}
@@ -0,0 +1,196 @@
+package com.syl.exsilent.builder;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发追加器
+ * 多个生产线程同时向同一工作表追加数据块：
+ * 1.各线程在本地独立生成数据块（取值、样式、合并区域），不获取工作表的锁；
+ * 2.同一时刻只有一个线程通过CAS取得放置权，按序号依次放置已就绪的数据块，行顺序只取决于序号，与线程调度无关；
+ * 3.序号靠后的数据块先完成时暂存，由持有放置权的线程接力放置，其他线程无需等待。
+ * 放置是串行的：行游标只由持有放置权的线程修改，每个数据块放入工作表时仍短暂获取工作表的锁以合并单元格及输出已完成的行，
+ * 并行的只有数据块的生成。
+ * 追加期间不应再通过SheetBuilder的其他append方法写入同一工作表；
+ * 数据块超出工作表格式的最大行数时整块放入续表，单个数据块不拆分，
+ * 行数超过续表可容纳行数（最大行数减去表头行数）的数据块在追加时即被拒绝
+ *
+ * @param <T> 数据类型
+ * @since 2023.6.23
+ */
+@Slf4j
+public class ConcurrentAppender<T> implements AutoCloseable {
+    /**
+     * 目标工作表builder，达到最大行数后切换为续表，仅由持有放置权的线程修改
+     */
+    private volatile SheetBuilder sheetBuilder;
+    /**
+     * 数据类型布局
+     */
+    private final ClassLayout layout;
+    /**
+     * 行游标，下一个数据块的起始行，仅由持有放置权的线程读写，放置权的CAS保证可见性
+     */
+    private int rowCursor;
+    /**
+     * 下一个待放置的数据块序号，取出数据块时即推进
+     */
+    private final AtomicLong nextSequence = new AtomicLong(0);
+    /**
+     * 已生成、等待前序数据块放置的数据块
+     * k-序号
+     * v-数据块
+     */
+    private final Map<Long, SheetBuilder> pending = new ConcurrentHashMap<>();
+    /**
+     * 是否有线程正在放置数据块
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    ConcurrentAppender(SheetBuilder sheetBuilder, ClassLayout layout, int startRow) {
+        this.sheetBuilder = sheetBuilder;
+        this.layout = layout;
+        this.rowCursor = startRow;
+    }
+
+    /**
+     * 追加数据块
+     *
+     * @param sequence 数据块序号，从0开始连续编号，决定数据块在工作表中的顺序
+     * @param chunk    数据块
+     * @return 当前追加器
+     */
+    public ConcurrentAppender<T> append(long sequence, @NonNull List<? extends T> chunk) {
+        return this.append(sequence, chunk.iterator());
+    }
+
+    /**
+     * 追加数据块
+     *
+     * @param sequence 数据块序号，从0开始连续编号，决定数据块在工作表中的顺序
+     * @param iterator 数据块迭代器
+     * @return 当前追加器
+     * @throws IllegalArgumentException 序号已使用，或数据块行数超过续表可容纳的行数，此时序号不被占用
+     */
+    public ConcurrentAppender<T> append(long sequence, @NonNull Iterator<? extends T> iterator) {
+        // 提前拒绝明显重复的序号，避免无用的生成；并发提交同一序号由暂存时的检查拒绝
+        if (sequence < this.nextSequence.get() || this.pending.containsKey(sequence)) {
+            throw duplicated(sequence);
+        }
+        SheetBuilder chunk = this.sheetBuilder.render(iterator, this.layout);
+        int capacity = this.sheetBuilder.maxRows() - this.layout.getHeaderHeight();
+        if (chunk.maxRowNum() > capacity) {
+            throw new IllegalArgumentException("chunk sequence " + sequence + " has " + chunk.maxRowNum()
+                    + " rows, more than the " + capacity + " rows a sheet can hold");
+        }
+        if (this.pending.putIfAbsent(sequence, chunk) != null) {
+            throw duplicated(sequence);
+        }
+        // 同一序号的数据块已在检查后被放置时，暂存的数据块不会再被按序放置，需移除
+        if (sequence < this.nextSequence.get() && this.pending.remove(sequence, chunk)) {
+            throw duplicated(sequence);
+        }
+        this.drain();
+        return this;
+    }
+
+    private static IllegalArgumentException duplicated(long sequence) {
+        return new IllegalArgumentException("chunk sequence " + sequence + " has been appended");
+    }
+
+    /**
+     * 按序号放置所有已就绪的数据块
+     * 同一时刻只有一个线程通过CAS取得放置权，未取得的线程直接返回，其数据块由放置线程接力放置
+     */
+    private void drain() {
+        do {
+            if (!this.draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                SheetBuilder chunk;
+                while ((chunk = this.takeNext()) != null) {
+                    this.place(chunk);
+                }
+            } finally {
+                this.draining.set(false);
+            }
+            // 释放放置权后复查，避免遗漏释放前刚暂存的数据块
+        } while (this.pending.containsKey(this.nextSequence.get()));
+    }
+
+    /**
+     * 取出下一个序号的数据块并推进序号，调用方需持有放置权
+     * 取出与推进序号在该序号的映射上原子完成，并发暂存同一序号的线程要么取出失败，要么在暂存后发现序号已过
+     *
+     * @return 数据块，未就绪时为null
+     */
+    private SheetBuilder takeNext() {
+        SheetBuilder[] taken = new SheetBuilder[1];
+        this.pending.computeIfPresent(this.nextSequence.get(), (sequence, chunk) -> {
+            taken[0] = chunk;
+            this.nextSequence.incrementAndGet();
+            return null;
+        });
+        return taken[0];
+    }
+
+    /**
+     * 在行游标处放置数据块，剩余行数不足时切换到续表，调用方需持有放置权
+     *
+     * @param chunk 数据块
+     */
+    private void place(SheetBuilder chunk) {
+        int height = chunk.maxRowNum();
+        int baseRow = this.rowCursor;
+        if (baseRow + height > this.sheetBuilder.maxRows()) {
+            this.sheetBuilder = this.sheetBuilder.rollover(this.layout);
+            baseRow = this.sheetBuilder.maxRowNum();
+            if (baseRow + height > this.sheetBuilder.maxRows()) {
+                throw new IllegalStateException("chunk of " + height + " rows does not fit in sheet starting at row " + baseRow);
+            }
+        }
+        this.sheetBuilder.place(chunk, baseRow, baseRow + height);
+        this.rowCursor = baseRow + height;
+    }
+
+    /**
+     * @return 下一个待放置的数据块序号
+     */
+    public long nextSequence() {
+        return this.nextSequence.get();
+    }
+
+    /**
+     * 结束追加
+     * 序号不连续而未能放置的数据块按序号顺序放置在末尾
+     */
+    @Override
+    public synchronized void close() {
+        this.drain();
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        while (!this.draining.compareAndSet(false, true)) {
+            Thread.onSpinWait();
+        }
+        try {
+            log.warn("chunk sequence {} is missing, {} pending chunks are placed in order", this.nextSequence.get(), this.pending.size());
+            this.pending.keySet().stream().sorted().forEach(sequence -> {
+                SheetBuilder chunk = this.pending.remove(sequence);
+                if (chunk != null) {
+                    this.place(chunk);
+                }
+            });
+        } finally {
+            this.draining.set(false);
+        }
+    }
+}
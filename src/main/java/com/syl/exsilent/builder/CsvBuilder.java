@@ -0,0 +1,425 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.builder.SheetBuilder.CommonParam;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * csv/tsv builder
+ * 与excel导出使用相同的注解类：列顺序取@ExcelCell的序号，表头取@ExcelField/@ExcelFields的名称，
+ * 层级表头拼接为"成绩/语文"形式的平铺名称；记录逐条写入可复用的字符缓冲区，不经过任何单元格对象模型
+ * 非线程安全
+ *
+ * @since 2023.6.23
+ */
+public class CsvBuilder implements Closeable, Flushable {
+    /**
+     * 字符缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * 层级表头分隔符
+     */
+    private static final String HEADER_SEPARATOR = "/";
+    /**
+     * 未指定格式时LocalDate的默认格式
+     */
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd";
+    /**
+     * 未指定格式时Date、Calendar、LocalDateTime的默认格式
+     */
+    private static final String DEFAULT_DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
+    /**
+     * 文件格式
+     */
+    private final Format format;
+    /**
+     * 字符缓冲区
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * 缓冲区已使用长度
+     */
+    private int position = 0;
+    /**
+     * 字符输出，与字节通道二选一
+     */
+    private final Writer writer;
+    /**
+     * 字节通道，按UTF-8编码写入
+     */
+    private final WritableByteChannel channel;
+    /**
+     * 字节通道的编码器
+     */
+    private final CharsetEncoder encoder;
+    /**
+     * 字节通道的编码缓冲区
+     */
+    private final ByteBuffer bytes;
+    /**
+     * 按@ExcelCell的格式格式化数值、日期，与excel中的显示一致
+     */
+    private final DataFormatter formatter = new DataFormatter();
+    /**
+     * 上一次写入表头的类布局，类型不变时不重复写入表头
+     */
+    private ClassLayout layout = null;
+
+    /**
+     * 构造方法
+     *
+     * @param format 文件格式
+     * @param writer 字符输出，由close关闭
+     */
+    public CsvBuilder(@NonNull Format format, @NonNull Writer writer) {
+        this.format = format;
+        this.writer = writer;
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param format  文件格式
+     * @param channel 字节通道，按UTF-8编码写入，由close关闭
+     */
+    public CsvBuilder(@NonNull Format format, @NonNull WritableByteChannel channel) {
+        this.format = format;
+        this.writer = null;
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(BUFFER_SIZE * 3);
+    }
+
+    /**
+     * 写入列表数据
+     *
+     * @param list 列表数据
+     * @param <T>  泛型类
+     * @return 当前builder对象
+     */
+    public <T> CsvBuilder append(@NonNull List<T> list) {
+        if (list.isEmpty()) {
+            return this;
+        }
+        return this.append(list.iterator(), ClassLayout.of(list.get(0).getClass()));
+    }
+
+    /**
+     * 写入迭代器数据，逐条拉取
+     *
+     * @param iterator 数据迭代器
+     * @param clazz    数据类型，用于解析表头及列
+     * @param <T>      泛型类
+     * @return 当前builder对象
+     */
+    public <T> CsvBuilder append(@NonNull Iterator<? extends T> iterator, @NonNull Class<T> clazz) {
+        return this.append(iterator, ClassLayout.of(clazz));
+    }
+
+    /**
+     * 写入流数据，流由调用方负责关闭
+     *
+     * @param stream 数据流
+     * @param clazz  数据类型，用于解析表头及列
+     * @param <T>    泛型类
+     * @return 当前builder对象
+     */
+    public <T> CsvBuilder append(@NonNull Stream<? extends T> stream, @NonNull Class<T> clazz) {
+        return this.append(stream.iterator(), clazz);
+    }
+
+    private CsvBuilder append(Iterator<?> iterator, ClassLayout layout) {
+        List<CommonParam> params = layout.getCells();
+        if (this.layout != layout) {
+            this.layout = layout;
+            List<String> names = layout.flatHeaderNames(HEADER_SEPARATOR);
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    this.append(this.format.delimiter);
+                }
+                this.field(names.get(i));
+            }
+            this.append(this.format.lineSeparator);
+        }
+        while (iterator.hasNext()) {
+            Object t = iterator.next();
+            for (int i = 0, size = params.size(); i < size; i++) {
+                if (i > 0) {
+                    this.append(this.format.delimiter);
+                }
+                CommonParam param = params.get(i);
+                this.value(param.value(t), param.getFormat());
+            }
+            this.append(this.format.lineSeparator);
+        }
+        return this;
+    }
+
+    /**
+     * 按值的类型写入字段，指定了格式的数值及日期按excel格式格式化
+     *
+     * @param value   字段值
+     * @param pattern @ExcelCell的格式
+     */
+    private void value(Object value, String pattern) {
+        if (value == null) {
+            return;
+        }
+        boolean formatted = pattern != null && !pattern.isEmpty();
+        if (value instanceof String) {
+            this.field((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            if (formatted) {
+                this.field(this.formatter.formatRawCellContents(((Number) value).doubleValue(), -1, pattern));
+            } else {
+                this.append(((Number) value).longValue());
+            }
+        } else if (value instanceof Number) {
+            if (formatted) {
+                this.field(this.formatter.formatRawCellContents(((Number) value).doubleValue(), -1, pattern));
+            } else if (value instanceof BigDecimal) {
+                this.append(((BigDecimal) value).toPlainString());
+            } else {
+                this.append(value.toString());
+            }
+        } else if (value instanceof Boolean) {
+            this.append((Boolean) value ? "TRUE" : "FALSE");
+        } else if (value instanceof Date) {
+            this.date(DateUtil.getExcelDate((Date) value), formatted ? pattern : DEFAULT_DATE_TIME_FORMAT);
+        } else if (value instanceof LocalDateTime) {
+            this.date(DateUtil.getExcelDate((LocalDateTime) value), formatted ? pattern : DEFAULT_DATE_TIME_FORMAT);
+        } else if (value instanceof LocalDate) {
+            this.date(DateUtil.getExcelDate((LocalDate) value), formatted ? pattern : DEFAULT_DATE_FORMAT);
+        } else if (value instanceof Calendar) {
+            this.date(DateUtil.getExcelDate((Calendar) value, false), formatted ? pattern : DEFAULT_DATE_TIME_FORMAT);
+        } else {
+            this.field(value.toString());
+        }
+    }
+
+    private void date(double serial, String pattern) {
+        this.field(this.formatter.formatRawCellContents(serial, -1, pattern));
+    }
+
+    /**
+     * 写入文本字段，逐字符判断是否需要转义，不使用正则
+     * csv：包含分隔符、引号或换行时整体加引号，引号双写（RFC 4180）；
+     * tsv：制表符、换行及反斜杠以反斜杠转义
+     *
+     * @param value 文本
+     */
+    private void field(String value) {
+        int length = value.length();
+        int i = 0;
+        if (this.format == Format.CSV) {
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    break;
+                }
+                i++;
+            }
+            if (i == length) {
+                this.append(value);
+                return;
+            }
+            this.append('"');
+            for (i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    this.append('"');
+                }
+                this.append(c);
+            }
+            this.append('"');
+        } else {
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c == '\t' || c == '\n' || c == '\r' || c == '\\') {
+                    break;
+                }
+                i++;
+            }
+            if (i == length) {
+                this.append(value);
+                return;
+            }
+            for (i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\t':
+                        this.append("\\t");
+                        break;
+                    case '\n':
+                        this.append("\\n");
+                        break;
+                    case '\r':
+                        this.append("\\r");
+                        break;
+                    case '\\':
+                        this.append("\\\\");
+                        break;
+                    default:
+                        this.append(c);
+                }
+            }
+        }
+    }
+
+    private void append(String value) {
+        int length = value.length();
+        int offset = 0;
+        while (offset < length) {
+            if (this.position == BUFFER_SIZE) {
+                this.drain();
+            }
+            int count = Math.min(length - offset, BUFFER_SIZE - this.position);
+            value.getChars(offset, offset + count, this.buffer, this.position);
+            this.position += count;
+            offset += count;
+        }
+    }
+
+    private void append(char value) {
+        if (this.position == BUFFER_SIZE) {
+            this.drain();
+        }
+        this.buffer[this.position++] = value;
+    }
+
+    private void append(long value) {
+        if (value < 0) {
+            this.append('-');
+            if (value == Long.MIN_VALUE) {
+                this.append("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        // 整数最多19位，直接从后向前写入缓冲区
+        if (this.position + 19 > BUFFER_SIZE) {
+            this.drain();
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int end = this.position + digits;
+        for (int i = end - 1; i >= this.position; i--) {
+            this.buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        this.position = end;
+    }
+
+    /**
+     * 将缓冲区写入输出
+     * 字节通道编码时，缓冲区末尾不完整的代理对保留到下一次
+     */
+    @SneakyThrows
+    private void drain() {
+        if (this.writer != null) {
+            this.writer.write(this.buffer, 0, this.position);
+            this.position = 0;
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(this.buffer, 0, this.position);
+        while (true) {
+            CoderResult result = this.encoder.encode(chars, this.bytes, false);
+            this.writeBytes();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        int remaining = chars.remaining();
+        System.arraycopy(this.buffer, chars.position(), this.buffer, 0, remaining);
+        this.position = remaining;
+    }
+
+    @SneakyThrows
+    private void writeBytes() {
+        this.bytes.flip();
+        while (this.bytes.hasRemaining()) {
+            this.channel.write(this.bytes);
+        }
+        this.bytes.clear();
+    }
+
+    /**
+     * 将已写入的内容输出
+     */
+    @Override
+    @SneakyThrows
+    public void flush() {
+        this.drain();
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * 输出剩余内容并关闭输出
+     */
+    @Override
+    @SneakyThrows
+    public void close() {
+        if (this.writer != null) {
+            this.flush();
+            this.writer.close();
+            return;
+        }
+        this.drain();
+        CharBuffer chars = CharBuffer.wrap(this.buffer, 0, this.position);
+        this.encoder.encode(chars, this.bytes, true);
+        this.encoder.flush(this.bytes);
+        this.writeBytes();
+        this.position = 0;
+        this.channel.close();
+    }
+
+    /**
+     * 文件格式
+     */
+    public enum Format {
+        /**
+         * 逗号分隔，RFC 4180
+         */
+        CSV(',', "\r\n"),
+        /**
+         * 制表符分隔
+         */
+        TSV('\t', "\n");
+
+        private final char delimiter;
+        private final String lineSeparator;
+
+        Format(char delimiter, String lineSeparator) {
+            this.delimiter = delimiter;
+            this.lineSeparator = lineSeparator;
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package com.syl.exsilent.builder;
 
+import com.syl.exsilent.annontion.StringStrategy;
+import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * workbook builder
@@ -19,28 +31,190 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 public class ExcelBuilder {
+    /**
+     * 新建builder使用的默认临时文件目录，为null时使用POI的临时文件策略
+     */
+    private static volatile Path defaultTempDirectory = null;
     /**
      * workbook实例
      */
     private volatile Workbook workbook;
+    /**
+     * excel类型
+     */
+    private final ExcelType excelType;
+    /**
+     * 字符串存储策略
+     */
+    private final StringStrategy stringStrategy;
+    /**
+     * workbook样式注册表
+     */
+    private final StyleRegistry styleRegistry;
     /**
      * 工作表builder Map
      * k-sheetBuilder name
      * v-sheetBuilder builder
      */
     private final ConcurrentHashMap<String, SheetBuilder> sheetBuilderMap = new ConcurrentHashMap<>();
+    /**
+     * 直写类型按创建顺序排列的工作表xml直写器，在sheetBuilderMap的锁内修改
+     */
+    private final List<SheetXmlWriter> sheetWriters = new ArrayList<>();
+    /**
+     * 并行构建使用的线程池，为null时串行构建
+     */
+    private volatile Executor buildExecutor = null;
+    /**
+     * 异步写入使用的线程池，为null时使用默认线程池
+     */
+    private volatile Executor asyncExecutor = null;
+    /**
+     * 直写类型流式输出时已打开的xlsx包，在sheetBuilderMap的锁内修改
+     */
+    private XlsxPackageWriter packageWriter = null;
+    /**
+     * 流式输出的目标输出流，统计写入的字节数
+     */
+    private CountingOutputStream streamOutput = null;
+    /**
+     * 导出指标
+     */
+    private volatile ExportMetrics metrics;
+    /**
+     * 流式、直写类型工作表临时文件的目录，为null时使用POI的临时文件策略
+     */
+    private volatile Path tempDirectory;
+    /**
+     * 创建当前builder的模板，关闭时workbook归还模板而不是关闭，为null时不复用workbook
+     */
+    private final ExcelTemplate template;
+    /**
+     * 是否已关闭，模板的workbook只归还一次
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     /**
      * 构造方法
+     * 流式类型使用默认行窗口大小且不压缩临时文件
      *
      * @param excelType excel类型
      */
     public ExcelBuilder(ExcelType excelType) {
+        this(excelType, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, false);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param excelType           excel类型
+     * @param rowAccessWindowSize 流式类型在内存中保留的行数，超出的行写入临时文件
+     * @param compressTempFiles   流式类型是否压缩临时文件
+     */
+    public ExcelBuilder(ExcelType excelType, int rowAccessWindowSize, boolean compressTempFiles) {
+        this(excelType, rowAccessWindowSize, compressTempFiles, StringStrategy.DEFAULT);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param excelType      excel类型
+     * @param stringStrategy 字符串存储策略，见{@link StringStrategy}
+     */
+    public ExcelBuilder(ExcelType excelType, @NonNull StringStrategy stringStrategy) {
+        this(excelType, SXSSFWorkbook.DEFAULT_WINDOW_SIZE, false, stringStrategy);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param excelType           excel类型
+     * @param rowAccessWindowSize 流式类型在内存中保留的行数，超出的行写入临时文件
+     * @param compressTempFiles   流式类型是否压缩临时文件
+     * @param stringStrategy      字符串存储策略，流式类型仅支持workbook级别，SST之外的策略均为内联
+     */
+    public ExcelBuilder(ExcelType excelType, int rowAccessWindowSize, boolean compressTempFiles, @NonNull StringStrategy stringStrategy) {
+        this.excelType = excelType;
+        this.stringStrategy = stringStrategy;
         if (excelType == ExcelType.XLS) {
             workbook = new HSSFWorkbook();
-        } else if (excelType == ExcelType.XLSX) {
+        } else if (excelType == ExcelType.XLSX || excelType == ExcelType.XLSX_DIRECT) {
+            // 直写类型的workbook仅用于承载样式表
             workbook = new XSSFWorkbook();
+        } else if (excelType == ExcelType.XLSX_STREAMING) {
+            workbook = TempFiles.streamingWorkbook(rowAccessWindowSize, compressTempFiles,
+                    stringStrategy == StringStrategy.SST, () -> this.tempDirectory);
+        }
+        this.styleRegistry = new StyleRegistry(this.workbook);
+        this.template = null;
+        this.metrics = ExportMetrics.NOOP;
+        this.tempDirectory = defaultTempDirectory;
+        this.styleRegistry.metrics(this.metrics, excelType);
+    }
+
+    /**
+     * 模板创建的直写类型builder，沿用模板池中的workbook及样式注册表
+     *
+     * @param template      模板
+     * @param workbook      仅承载样式表的workbook
+     * @param styleRegistry 已创建样式的注册表
+     * @see ExcelTemplate#newBuilder()
+     */
+    ExcelBuilder(ExcelTemplate template, XSSFWorkbook workbook, StyleRegistry styleRegistry) {
+        this.excelType = ExcelType.XLSX_DIRECT;
+        this.stringStrategy = StringStrategy.DEFAULT;
+        this.workbook = workbook;
+        this.styleRegistry = styleRegistry;
+        this.template = template;
+        this.metrics = ExportMetrics.NOOP;
+        this.tempDirectory = defaultTempDirectory;
+        this.styleRegistry.metrics(this.metrics, this.excelType);
+    }
+
+    /**
+     * 指定当前builder的导出指标，需在创建工作表之前调用；未指定时不记录
+     * Spring Boot应用中存在MeterRegistry时可注入ExportMetrics bean传入
+     *
+     * @param metrics 导出指标
+     * @return 当前builder对象
+     */
+    public ExcelBuilder metrics(@NonNull ExportMetrics metrics) {
+        synchronized (this.sheetBuilderMap) {
+            if (!this.sheetBuilderMap.isEmpty()) {
+                throw new IllegalStateException("metrics must be set before any sheet is created");
+            }
+            this.metrics = metrics;
+            this.styleRegistry.metrics(metrics, this.excelType);
+        }
+        return this;
+    }
+
+    /**
+     * 设置新建builder使用的默认临时文件目录
+     *
+     * @param tempDirectory 临时文件目录，为null时使用POI的临时文件策略
+     * @see #tempDirectory(Path)
+     */
+    public static void defaultTempDirectory(Path tempDirectory) {
+        defaultTempDirectory = tempDirectory;
+    }
+
+    /**
+     * 指定流式、直写类型工作表临时文件的目录，需在创建工作表之前调用
+     * 大量并发导出时可指定本地高速磁盘，目录不存在时在首次写入临时文件时创建；
+     * 流式类型指定目录时会替换POI的全局临时文件策略，未指定目录的导出仍使用POI默认目录
+     *
+     * @param tempDirectory 临时文件目录，为null时使用POI的临时文件策略
+     * @return 当前builder对象
+     */
+    public ExcelBuilder tempDirectory(Path tempDirectory) {
+        synchronized (this.sheetBuilderMap) {
+            if (!this.sheetBuilderMap.isEmpty()) {
+                throw new IllegalStateException("tempDirectory must be set before any sheet is created");
+            }
+            this.tempDirectory = tempDirectory;
         }
+        return this;
     }
 
     /**
@@ -57,13 +231,64 @@ public class ExcelBuilder {
                 if (sheetBuilderMap.containsKey(sheetName)) {
                     return sheetBuilderMap.get(sheetName);
                 }
-                SheetBuilder sheetBuilder = new SheetBuilder(this.workbook, sheetName);
-                sheetBuilderMap.put(sheetName, sheetBuilder);
-                return sheetBuilder;
+                return this.createSheetBuilder(sheetName, sheetName, 1);
             }
         }
     }
 
+    /**
+     * 创建sheetBuilder，调用方需持有sheetBuilderMap的锁
+     * 行数达到工作表格式的上限时，数据写入名为"名称 (2)"、"名称 (3)"...的续表，续表重复表头
+     *
+     * @param sheetName 工作表名称
+     * @param baseName  续表名称的基础名称
+     * @param number    工作表在续表序列中的序号，首个工作表为1
+     * @return 新的sheet builder对象
+     */
+    private SheetBuilder createSheetBuilder(String sheetName, String baseName, int number) {
+        SheetBuilder sheetBuilder;
+        if (this.excelType == ExcelType.XLSX_DIRECT) {
+            WorkbookUtil.validateSheetName(sheetName);
+            SheetXmlWriter sheetWriter = new SheetXmlWriter(sheetName, this.tempDirectory);
+            this.sheetWriters.add(sheetWriter);
+            if (this.packageWriter != null && this.sheetWriters.size() == 1) {
+                this.streamSheet(sheetWriter);
+            }
+            sheetBuilder = new SheetBuilder(this.styleRegistry, sheetWriter);
+        } else {
+            sheetBuilder = new SheetBuilder(this.workbook, this.styleRegistry, sheetName, this.stringStrategy);
+        }
+        // 续表与首个工作表共用指标标签，避免标签随续表数量增长
+        sheetBuilder.metrics(this.metrics.sheet(baseName, this.excelType));
+        // 流式、直写类型默认增量输出，使内存占用不随行数增长
+        sheetBuilder.incremental(this.excelType == ExcelType.XLSX_STREAMING || this.excelType == ExcelType.XLSX_DIRECT);
+        sheetBuilder.continuationFactory(() -> {
+            synchronized (this.sheetBuilderMap) {
+                int next = number + 1;
+                String continuationName = continuationName(baseName, next);
+                while (this.sheetBuilderMap.containsKey(continuationName)) {
+                    continuationName = continuationName(baseName, ++next);
+                }
+                return this.createSheetBuilder(continuationName, baseName, next);
+            }
+        });
+        sheetBuilderMap.put(sheetName, sheetBuilder);
+        return sheetBuilder;
+    }
+
+    /**
+     * 生成续表名称，超出工作表名称长度上限时截断基础名称
+     *
+     * @param baseName 基础名称
+     * @param number   续表序号
+     * @return 续表名称
+     */
+    private static String continuationName(String baseName, int number) {
+        String suffix = " (" + number + ")";
+        int maxLength = 31 - suffix.length();
+        return (baseName.length() > maxLength ? baseName.substring(0, maxLength) : baseName) + suffix;
+    }
+
     /**
      * 获取sheet
      * 返回前进行构建
@@ -99,28 +324,133 @@ public class ExcelBuilder {
         }
     }
 
+    /**
+     * 开启或关闭并行构建，开启时使用ForkJoin公共线程池，仅直写类型支持
+     *
+     * @param parallel 是否并行构建
+     * @return 当前builder对象
+     * @see #parallelBuild(Executor)
+     */
+    public ExcelBuilder parallelBuild(boolean parallel) {
+        return this.parallelBuild(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * 使用指定线程池并行构建各工作表，仅直写类型支持，仅对构建时仍有缓存单元格（关闭增量输出）的工作表有效
+     * 直写类型各工作表的xml直写器互不共享状态，整个构建（排序、生成工作表xml、写入临时文件）并行执行。
+     * POI类型的workbook非线程安全，创建行及单元格需写入共享字符串表、样式表等workbook级状态，无法并行，因此不支持，
+     * 以免开启后看似并行而实际串行
+     * 某个工作表构建失败时，其余工作表照常构建后抛出异常；被线程池拒绝的工作表保留数据，可再次构建
+     *
+     * @param executor 线程池，为null时串行构建
+     * @return 当前builder对象
+     * @throws IllegalStateException 非直写类型指定了线程池
+     */
+    public ExcelBuilder parallelBuild(Executor executor) {
+        if (executor != null && this.excelType != ExcelType.XLSX_DIRECT) {
+            throw new IllegalStateException("parallel build requires " + ExcelType.XLSX_DIRECT);
+        }
+        this.buildExecutor = executor;
+        return this;
+    }
+
+    /**
+     * 流式输出，仅直写类型支持，需在创建工作表之前调用
+     * xlsx包立即在输出流上打开，第一个工作表的数据在append过程中即写入输出流，首字节时间与数据量无关；
+     * 输出流写入失败（如下载连接已断开）时append抛出异常，数据生成随之终止。
+     * 之后的工作表仍先写入临时文件，最后通过{@link #writeTo(OutputStream)}等方法传入同一输出流结束输出
+     *
+     * @param outputStream 输出流
+     * @return 当前builder对象
+     */
+    public ExcelBuilder streamTo(@NonNull OutputStream outputStream) {
+        if (this.excelType != ExcelType.XLSX_DIRECT) {
+            throw new IllegalStateException("streaming output requires " + ExcelType.XLSX_DIRECT);
+        }
+        synchronized (this.sheetBuilderMap) {
+            if (this.packageWriter != null || !this.sheetBuilderMap.isEmpty()) {
+                throw new IllegalStateException("streamTo must be called once before any sheet is created");
+            }
+            this.streamOutput = new CountingOutputStream(outputStream);
+            this.packageWriter = new XlsxPackageWriter(this.streamOutput);
+        }
+        return this;
+    }
+
+    @SneakyThrows
+    private void streamSheet(SheetXmlWriter sheetWriter) {
+        this.packageWriter.stream(sheetWriter);
+    }
+
+    /**
+     * 指定异步写入使用的线程池
+     * 默认线程池在支持虚拟线程的JDK上为每个任务创建一个虚拟线程，否则为按需创建守护线程的缓存线程池
+     *
+     * @param executor 线程池，为null时使用默认线程池
+     * @return 当前builder对象
+     */
+    public ExcelBuilder asyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
     /**
      * 构造workbook
      */
+    @SneakyThrows
     public synchronized ExcelBuilder build() {
-        this.sheetBuilderMap.values().forEach(SheetBuilder::build);
+        Executor executor = this.buildExecutor;
+        if (executor == null || this.sheetBuilderMap.size() < 2) {
+            this.sheetBuilderMap.values().forEach(SheetBuilder::build);
+            return this;
+        }
+        // 仅直写类型可指定线程池，各工作表的构建互不影响
+        List<CompletableFuture<Void>> builds = this.sheetBuilderMap.values().stream()
+                .map(sheetBuilder -> submit(sheetBuilder::build, executor))
+                .toList();
+        // 等待全部工作表，不因其他工作表失败而中断
+        Throwable failure = null;
+        for (CompletableFuture<Void> build : builds) {
+            try {
+                build.join();
+            } catch (CompletionException e) {
+                failure = addFailure(failure, e.getCause());
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
         return this;
     }
 
+    /**
+     * 提交构建任务，线程池拒绝时返回失败的future
+     */
+    private static CompletableFuture<Void> submit(Runnable task, Executor executor) {
+        try {
+            return CompletableFuture.runAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable addFailure(Throwable failure, Throwable e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
     /**
      * 将workbook内容写入File实例中并关闭workbook
      *
      * @param newFile File实例
      */
     public void writeAndClose(File newFile) {
-        this.build();
-        FileOutputStream fileOutputStream = null;
-        try {
-            fileOutputStream = new FileOutputStream(newFile);
-        } catch (FileNotFoundException e) {
-            log.error(e.getMessage(), e);
-        }
-        this.writeAndClose(fileOutputStream);
+        this.writeAndClose(newFile.toPath());
     }
 
     /**
@@ -129,14 +459,18 @@ public class ExcelBuilder {
      * @param newFileDir 文件路径
      */
     public void writeAndClose(String newFileDir) {
-        this.build();
-        FileOutputStream fileOutputStream = null;
+        this.writeAndClose(Paths.get(newFileDir));
+    }
+
+    /**
+     * 以默认选项写入文件，失败时记录日志，文件无法打开时不再构建及写入
+     */
+    private void writeAndClose(Path path) {
         try {
-            fileOutputStream = new FileOutputStream(newFileDir);
-        } catch (FileNotFoundException e) {
-            log.error(e.getMessage(), e);
+            this.writeTo(path, WriteOptions.DEFAULT);
+        } catch (Exception e) {
+            log.error("workbook write failed", e);
         }
-        this.writeAndClose(fileOutputStream);
     }
 
     /**
@@ -147,17 +481,255 @@ public class ExcelBuilder {
     public void writeAndClose(OutputStream outputStream) {
         this.build();
         try {
-            this.workbook.write(outputStream);
+            this.write(this.counting(outputStream));
         } catch (IOException e) {
             log.error("workbook write failed", e);
         } finally {
+            this.close(outputStream).forEach(e -> log.error("workbook close failed", e));
+        }
+    }
+
+    /**
+     * 在线程池中构建workbook并写入输出流，写入后关闭输出流及workbook
+     * 写入失败时future以异常结束，异常不再被吞掉
+     *
+     * @param outputStream 输出流
+     * @return 导出结果
+     * @see #asyncExecutor(Executor)
+     */
+    public CompletableFuture<ExportResult> writeAsync(@NonNull OutputStream outputStream) {
+        return CompletableFuture.supplyAsync(() -> this.export(() -> outputStream), this.executor());
+    }
+
+    /**
+     * 在线程池中构建workbook并写入文件，写入后关闭workbook
+     *
+     * @param newFile File实例
+     * @return 导出结果
+     * @see #writeAsync(OutputStream)
+     */
+    public CompletableFuture<ExportResult> writeAsync(@NonNull File newFile) {
+        return this.writeAsync(newFile.toPath(), WriteOptions.DEFAULT);
+    }
+
+    /**
+     * 在线程池中构建workbook并写入文件，写入后关闭workbook
+     *
+     * @param path    文件路径
+     * @param options 写入选项
+     * @return 导出结果
+     * @see #writeTo(Path, WriteOptions)
+     */
+    public CompletableFuture<ExportResult> writeAsync(@NonNull Path path, @NonNull WriteOptions options) {
+        return CompletableFuture.supplyAsync(() -> this.writeTo(path, options), this.executor());
+    }
+
+    /**
+     * 构建workbook并写入输出流，写入后关闭输出流及workbook
+     * 与writeAndClose不同，写入失败时抛出异常
+     *
+     * @param outputStream 输出流
+     * @return 导出结果
+     */
+    public ExportResult writeTo(@NonNull OutputStream outputStream) {
+        return this.export(() -> outputStream);
+    }
+
+    /**
+     * 构建workbook并经FileChannel写入文件，写入后关闭workbook
+     * 写入失败时抛出异常，原子替换时目标文件保持原样，否则删除不完整的目标文件
+     *
+     * @param path    文件路径
+     * @param options 写入选项
+     * @return 导出结果
+     */
+    @SneakyThrows
+    public ExportResult writeTo(@NonNull Path path, @NonNull WriteOptions options) {
+        long start = System.nanoTime();
+        Path target = path.toAbsolutePath();
+        Path output = options.isAtomic() ? stagingPath(target) : target;
+        CountingOutputStream counting = null;
+        boolean opened = false;
+        Throwable failure = null;
+        try {
+            FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    options.isAtomic() ? StandardOpenOption.CREATE_NEW : StandardOpenOption.TRUNCATE_EXISTING);
+            opened = true;
+            // 关闭时写出缓冲区剩余数据并按需落盘，失败即写入失败，不计入收尾失败
+            try (ChannelOutputStream outputStream = new ChannelOutputStream(channel, options.getBufferSize(), options.isFsync())) {
+                counting = this.counting(outputStream);
+                this.build();
+                this.write(counting);
+            }
+            if (options.isAtomic()) {
+                Files.move(output, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                if (options.isFsync()) {
+                    forceDirectory(target.getParent());
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+        List<Throwable> failures = this.close(null);
+        if (failure != null) {
             try {
+                // 打开失败时未写入任何内容，不删除已有文件
+                if (opened) {
+                    Files.deleteIfExists(output);
+                }
+            } catch (IOException e) {
+                failures.add(e);
+            }
+            failures.forEach(failure::addSuppressed);
+            throw failure;
+        }
+        return new ExportResult(this.excelType, counting.count, Duration.ofNanos(System.nanoTime() - start), List.copyOf(failures));
+    }
+
+    /**
+     * 原子替换时写入的隐藏文件，与目标文件位于同一目录，重命名不跨文件系统
+     */
+    private static Path stagingPath(Path target) {
+        String name = "." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+        return target.resolveSibling(name);
+    }
+
+    /**
+     * 强制落盘目录，使重命名在宕机后保留；部分平台无法以通道打开目录，此时忽略
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("directory {} cannot be forced", directory, e);
+        }
+    }
+
+    /**
+     * 放弃导出：关闭workbook并删除临时文件，不写入任何内容
+     * 用于数据生成失败或下载连接断开后释放资源
+     */
+    public void abort() {
+        this.close(null).forEach(e -> log.warn("workbook close failed", e));
+    }
+
+    private Executor executor() {
+        Executor executor = this.asyncExecutor;
+        return executor != null ? executor : DefaultAsyncExecutor.INSTANCE;
+    }
+
+    /**
+     * 构建并写入，统计写入的字节数及耗时
+     *
+     * @param opener 输出流的打开方法
+     * @return 导出结果
+     */
+    @SneakyThrows
+    private ExportResult export(Callable<OutputStream> opener) {
+        long start = System.nanoTime();
+        OutputStream outputStream = null;
+        CountingOutputStream counting = null;
+        Throwable failure = null;
+        try {
+            outputStream = opener.call();
+            counting = this.counting(outputStream);
+            this.build();
+            this.write(counting);
+        } catch (Throwable e) {
+            failure = e;
+        }
+        List<Throwable> failures = this.close(outputStream);
+        if (failure != null) {
+            failures.forEach(failure::addSuppressed);
+            throw failure;
+        }
+        return new ExportResult(this.excelType, counting.count, Duration.ofNanos(System.nanoTime() - start), List.copyOf(failures));
+    }
+
+    /**
+     * 包装统计字节数的输出流，流式输出时沿用流式输出的统计
+     */
+    private CountingOutputStream counting(OutputStream outputStream) {
+        synchronized (this.sheetBuilderMap) {
+            if (this.streamOutput == null) {
+                return new CountingOutputStream(outputStream);
+            }
+            if (!this.streamOutput.wraps(outputStream)) {
+                throw new IllegalArgumentException("the output stream differs from the one passed to streamTo");
+            }
+            return this.streamOutput;
+        }
+    }
+
+    /**
+     * 将已构建的workbook写入输出流，记录写入耗时及字节数
+     *
+     * @param outputStream 输出流，不关闭；流式输出时需为streamTo传入的输出流
+     * @throws IOException 写入失败
+     */
+    private void write(CountingOutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        this.writeWorkbook(outputStream);
+        this.metrics.written(this.excelType, outputStream.count, System.nanoTime() - start);
+    }
+
+    private void writeWorkbook(OutputStream outputStream) throws IOException {
+        if (this.excelType == ExcelType.XLSX_DIRECT) {
+            synchronized (this.sheetBuilderMap) {
+                StylesTable styles = ((XSSFWorkbook) this.workbook).getStylesSource();
+                if (this.packageWriter != null) {
+                    this.packageWriter.finish(this.sheetWriters, styles);
+                } else {
+                    XlsxPackageWriter.write(outputStream, this.sheetWriters, styles);
+                }
+            }
+        } else {
+            this.workbook.write(outputStream);
+        }
+    }
+
+    /**
+     * 关闭输出流及workbook，删除临时文件，各步骤互不影响
+     *
+     * @param outputStream 输出流，可为null
+     * @return 各步骤的失败
+     */
+    private List<Throwable> close(OutputStream outputStream) {
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            if (outputStream != null) {
                 outputStream.close();
+            }
+        } catch (IOException e) {
+            failures.add(e);
+        }
+        if (this.workbook instanceof SXSSFWorkbook) {
+            // 删除流式写入产生的临时文件，须在关闭workbook之前，否则临时文件的写入流已关闭，删除时记录警告
+            ((SXSSFWorkbook) this.workbook).dispose();
+        }
+        if (this.template != null) {
+            // 仅承载样式表的workbook归还模板复用
+            if (this.closed.compareAndSet(false, true)) {
+                this.template.release((XSSFWorkbook) this.workbook, this.styleRegistry);
+            }
+        } else {
+            try {
                 this.workbook.close();
             } catch (IOException e) {
-                log.error("workbook close failed", e);
+                failures.add(e);
+            }
+        }
+        synchronized (this.sheetBuilderMap) {
+            // 删除直写产生的临时文件
+            for (SheetXmlWriter sheetWriter : this.sheetWriters) {
+                try {
+                    sheetWriter.dispose();
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
             }
         }
+        return failures;
     }
 
     /**
@@ -169,6 +741,22 @@ public class ExcelBuilder {
         return this.build().workbook;
     }
 
+    /**
+     * @return excel类型
+     */
+    public ExcelType excelType() {
+        return this.excelType;
+    }
+
+    /**
+     * 获取workbook样式注册表，可用于查看样式命中情况
+     *
+     * @return 样式注册表
+     */
+    public StyleRegistry styleRegistry() {
+        return this.styleRegistry;
+    }
+
     @SneakyThrows
     public HSSFWorkbook hssfWorkbook() {
         Workbook workbook = this.workbook();
@@ -191,6 +779,64 @@ public class ExcelBuilder {
 
     public enum ExcelType {
         XLS,
-        XLSX
+        XLSX,
+        /**
+         * 基于SXSSF的流式xlsx，仅在内存中保留行窗口内的行，适用于大数据量导出
+         */
+        XLSX_STREAMING,
+        /**
+         * 直写xlsx，不经过POI的Row/Cell对象模型，单元格直接写为工作表xml，适用于追求吞吐量的平铺报表
+         * 字符串均为内联字符串；不生成POI工作表，sheet、workbook等方法无法获取其中的数据
+         */
+        XLSX_DIRECT
+    }
+
+    /**
+     * 统计写入字节数的输出流
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        boolean wraps(OutputStream outputStream) {
+            return this == outputStream || this.out == outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+    }
+
+    /**
+     * 默认异步写入线程池，首次异步写入时创建
+     * JDK 21及以上通过反射使用虚拟线程，大量并发导出不占用平台线程；否则使用守护线程的缓存线程池
+     */
+    private static final class DefaultAsyncExecutor {
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.debug("virtual threads are not available, fallback to cached thread pool");
+                AtomicInteger threadNumber = new AtomicInteger();
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "exsilent-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
     }
 }
@@ -0,0 +1,401 @@
+package com.syl.exsilent.builder;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * excel reader
+ * 将导出时使用的注解类读回：表头按@ExcelField名称匹配列，数据行按@ExcelCell字段转换为实例，按批次回调
+ * xlsx基于XSSFReader与SAX事件解析工作表xml，不构建Row/Cell对象模型，内存中只保留当前行与未满的批次，
+ * 内联字符串不占用额外内存，共享字符串表以只读方式整体加载；
+ * xls基于HSSF事件模型逐条处理BIFF记录，共享字符串表及格式记录在读到时登记，单元格记录即时转换，读完目标工作表后终止
+ * 注解类需有无参构造方法及setter（或非final字段），或为record
+ *
+ * @param <T> 注解类
+ * @since 2023.6.23
+ */
+public class ExcelReader<T> {
+    /**
+     * 默认每批实例数量
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /**
+     * 注解类
+     */
+    private final Class<T> type;
+    /**
+     * 工作表名称，为null时读取第一个工作表
+     */
+    private String sheetName = null;
+    /**
+     * 表头行数
+     */
+    private int headerRows;
+    /**
+     * 每批实例数量
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * 构造方法
+     * 表头行数默认为注解类导出时的表头行数
+     *
+     * @param type 注解类
+     */
+    public ExcelReader(@NonNull Class<T> type) {
+        this.type = type;
+        this.headerRows = ClassLayout.of(type).getHeaderHeight();
+    }
+
+    /**
+     * 指定读取的工作表
+     *
+     * @param sheetName 工作表名称，为null时读取第一个工作表
+     * @return 当前reader对象
+     */
+    public ExcelReader<T> sheet(String sheetName) {
+        this.sheetName = sheetName;
+        return this;
+    }
+
+    /**
+     * 指定表头行数，为0时按导出时的列位置匹配
+     *
+     * @param headerRows 工作表开头的表头行数
+     * @return 当前reader对象
+     */
+    public ExcelReader<T> headerRows(int headerRows) {
+        if (headerRows < 0) {
+            throw new IllegalArgumentException("headerRows must not be negative");
+        }
+        this.headerRows = headerRows;
+        return this;
+    }
+
+    /**
+     * 指定每批实例数量
+     *
+     * @param batchSize 每批实例数量
+     * @return 当前reader对象
+     */
+    public ExcelReader<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 读取文件，按文件头识别xlsx或xls，文件以随机访问方式打开，不整体加载到内存
+     *
+     * @param file     excel文件
+     * @param consumer 批次回调，每批为新的列表，回调方可直接持有
+     * @return 读取的实例总数
+     */
+    @SneakyThrows
+    public long read(@NonNull File file, @NonNull Consumer<List<T>> consumer) {
+        RowMapper<T> mapper = new RowMapper<>(this.type, this.headerRows, this.batchSize, consumer);
+        FileMagic fileMagic = FileMagic.valueOf(file);
+        if (fileMagic == FileMagic.OOXML) {
+            try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+                this.readXlsx(pkg, mapper);
+            }
+        } else if (fileMagic == FileMagic.OLE2) {
+            try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+                this.readXls(fs, mapper);
+            }
+        } else {
+            throw new IllegalArgumentException(file + " is not an excel file: " + fileMagic);
+        }
+        return mapper.finish();
+    }
+
+    /**
+     * 读取输入流，流先写入临时文件再读取，读取后删除，输入流由调用方关闭
+     *
+     * @param inputStream excel输入流
+     * @param consumer    批次回调，每批为新的列表，回调方可直接持有
+     * @return 读取的实例总数
+     */
+    @SneakyThrows
+    public long read(@NonNull InputStream inputStream, @NonNull Consumer<List<T>> consumer) {
+        File file = TempFile.createTempFile("exsilent-read", ".tmp");
+        try {
+            Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return this.read(file, consumer);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @SneakyThrows
+    private void readXlsx(OPCPackage pkg, RowMapper<T> mapper) {
+        XSSFReader reader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+        StylesTable styles = reader.getStylesTable();
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                if (this.sheetName != null && !this.sheetName.equals(sheets.getSheetName())) {
+                    continue;
+                }
+                RawValueFormatter formatter = new RawValueFormatter();
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new SheetHandler(mapper, formatter), formatter, false));
+                parser.parse(new InputSource(sheet));
+                return;
+            }
+        }
+        throw new IllegalArgumentException("sheet " + this.sheetName + " not found");
+    }
+
+    @SneakyThrows
+    private void readXls(POIFSFileSystem fs, RowMapper<T> mapper) {
+        XlsListener listener = new XlsListener(mapper, this.sheetName);
+        HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(listener);
+        new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        if (!listener.found) {
+            throw new IllegalArgumentException("sheet " + this.sheetName + " not found");
+        }
+    }
+
+    /**
+     * 记录数值单元格原始值的格式化器
+     * XSSFSheetXMLHandler只向回调提供格式化后的文本，数值单元格格式化时在此保留原始值，
+     * 使"0.00"等格式不损失精度，日期可还原为日期类型
+     */
+    private static final class RawValueFormatter extends DataFormatter {
+        private double raw;
+        private boolean numeric;
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            this.raw = value;
+            this.numeric = true;
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+
+    /**
+     * 工作表事件回调，将单元格引用解析为列号后推送给行映射器
+     */
+    private static final class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowMapper<?> mapper;
+        private final RawValueFormatter formatter;
+        private int col;
+
+        SheetHandler(RowMapper<?> mapper, RawValueFormatter formatter) {
+            this.mapper = mapper;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            this.col = -1;
+            this.mapper.startRow(rowNum);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            this.mapper.endRow();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            this.col = cellReference == null ? this.col + 1 : column(cellReference);
+            // 未经过格式化器的单元格（字符串、布尔及无样式的数值）按文本转换
+            boolean numeric = this.formatter.numeric;
+            this.formatter.numeric = false;
+            this.mapper.cell(this.col, formattedValue, this.formatter.raw, numeric);
+        }
+
+        /**
+         * 解析单元格引用中的列号，如"AB12"为27
+         */
+        private static int column(String cellReference) {
+            int col = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+
+    /**
+     * xls记录监听器
+     * 工作簿全局记录中登记工作表名称、共享字符串表及格式；单元格记录按行、列顺序出现，行号变化时结束上一行。
+     * 目标工作表的EOF记录之后终止解析，不再读取后续工作表
+     */
+    private static final class XlsListener extends AbortableHSSFListener {
+        private final RowMapper<?> mapper;
+        private final String sheetName;
+        /**
+         * 格式登记，只用于格式化数值单元格，不向下转发记录
+         */
+        private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(record -> {
+        });
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private BoundSheetRecord[] orderedSheets;
+        private SSTRecord sst;
+        private int sheetIndex = -1;
+        private boolean reading = false;
+        private boolean found = false;
+        /**
+         * 目标工作表内嵌套的子流（如图表）深度
+         */
+        private int nestedStreams = 0;
+        private int rowNum = -1;
+        /**
+         * 字符串结果的公式单元格，其值在紧随的StringRecord中
+         */
+        private FormulaRecord pendingFormula;
+
+        XlsListener(RowMapper<?> mapper, String sheetName) {
+            this.mapper = mapper;
+            this.sheetName = sheetName;
+        }
+
+        @Override
+        public short abortableProcessRecord(org.apache.poi.hssf.record.Record record) {
+            this.formats.processRecordInternally(record);
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid:
+                    this.boundSheets.add((BoundSheetRecord) record);
+                    return 0;
+                case SSTRecord.sid:
+                    this.sst = (SSTRecord) record;
+                    return 0;
+                case BOFRecord.sid:
+                    this.startStream((BOFRecord) record);
+                    return 0;
+                case EOFRecord.sid:
+                    if (!this.reading) {
+                        return 0;
+                    }
+                    if (this.nestedStreams > 0) {
+                        this.nestedStreams--;
+                        return 0;
+                    }
+                    if (this.rowNum >= 0) {
+                        this.mapper.endRow();
+                    }
+                    return 1;
+                default:
+            }
+            if (!this.reading || this.nestedStreams > 0) {
+                return 0;
+            }
+            switch (record.getSid()) {
+                case NumberRecord.sid: {
+                    NumberRecord number = (NumberRecord) record;
+                    this.cell(number.getRow(), number.getColumn(), this.formats.formatNumberDateCell(number), number.getValue(), true);
+                    break;
+                }
+                case LabelSSTRecord.sid: {
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    this.cell(label.getRow(), label.getColumn(), this.sst.getString(label.getSSTIndex()).getString(), 0, false);
+                    break;
+                }
+                case LabelRecord.sid: {
+                    LabelRecord label = (LabelRecord) record;
+                    this.cell(label.getRow(), label.getColumn(), label.getValue(), 0, false);
+                    break;
+                }
+                case BoolErrRecord.sid: {
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    if (boolErr.isBoolean()) {
+                        this.cell(boolErr.getRow(), boolErr.getColumn(), boolErr.getBooleanValue() ? "TRUE" : "FALSE", 0, false);
+                    }
+                    break;
+                }
+                case FormulaRecord.sid: {
+                    FormulaRecord formula = (FormulaRecord) record;
+                    switch (formula.getCachedResultTypeEnum()) {
+                        case NUMERIC:
+                            this.cell(formula.getRow(), formula.getColumn(), this.formats.formatNumberDateCell(formula), formula.getValue(), true);
+                            break;
+                        case STRING:
+                            this.pendingFormula = formula;
+                            break;
+                        case BOOLEAN:
+                            this.cell(formula.getRow(), formula.getColumn(), formula.getCachedBooleanValue() ? "TRUE" : "FALSE", 0, false);
+                            break;
+                        default:
+                    }
+                    break;
+                }
+                case StringRecord.sid:
+                    if (this.pendingFormula != null) {
+                        this.cell(this.pendingFormula.getRow(), this.pendingFormula.getColumn(), ((StringRecord) record).getString(), 0, false);
+                        this.pendingFormula = null;
+                    }
+                    break;
+                default:
+            }
+            return 0;
+        }
+
+        private void startStream(BOFRecord bof) {
+            if (this.reading) {
+                this.nestedStreams++;
+                return;
+            }
+            if (bof.getType() != BOFRecord.TYPE_WORKSHEET) {
+                return;
+            }
+            if (this.orderedSheets == null) {
+                this.orderedSheets = BoundSheetRecord.orderByBofPosition(this.boundSheets);
+            }
+            this.sheetIndex++;
+            this.reading = this.sheetName == null
+                    ? this.sheetIndex == 0
+                    : this.sheetIndex < this.orderedSheets.length && this.sheetName.equals(this.orderedSheets[this.sheetIndex].getSheetname());
+            this.found |= this.reading;
+        }
+
+        private void cell(int row, int col, String text, double raw, boolean numeric) {
+            if (row != this.rowNum) {
+                if (this.rowNum >= 0) {
+                    this.mapper.endRow();
+                }
+                this.rowNum = row;
+                this.mapper.startRow(row);
+            }
+            this.mapper.cell(col, text, raw, numeric);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.annontion.StringStrategy;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * excel模板
+ * 注册时预先解析数据类型的布局（表头模板、字段访问器），通过{@link #newBuilder()}创建的builder直接沿用，适用于大量小数据量导出。
+ * 仅支持直写类型：直写类型的POI workbook仅承载样式表，不含任何数据，模板预先创建数据类型的字体及样式，
+ * builder写入或放弃导出后workbook及样式注册表回到池中，下一个builder无需重新创建workbook、字体及样式，
+ * 池中的样式表随使用的样式属性增长，写入的文件中可能包含当前导出未使用的样式；
+ * 其他类型（xls、xlsx、流式xlsx）的workbook含有工作表、共享字符串等数据，无法安全复用，注册时抛出异常
+ * 线程安全，可注册为单例供所有请求使用
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+public final class ExcelTemplate {
+    /**
+     * 默认池中最多保留的空闲workbook数
+     */
+    private static final int DEFAULT_MAX_IDLE = 16;
+    /**
+     * excel类型
+     */
+    private final ExcelType excelType;
+    /**
+     * 字符串存储策略
+     */
+    private final StringStrategy stringStrategy;
+    /**
+     * 预先解析的数据类型布局
+     */
+    private final List<ClassLayout> layouts;
+    /**
+     * 池中最多保留的空闲workbook数
+     */
+    private final int maxIdle;
+    /**
+     * 空闲的样式宿主，后进先出，最近使用的workbook优先复用
+     */
+    private final Deque<StyleHost> idle = new ConcurrentLinkedDeque<>();
+    /**
+     * 已占用的空闲位置数，归还时先预留位置再放入池中，取出时释放，保证池中的workbook数不超过maxIdle
+     */
+    private final AtomicInteger idleSlots = new AtomicInteger();
+
+    private ExcelTemplate(ExcelType excelType, StringStrategy stringStrategy, int maxIdle, Class<?>... classes) {
+        if (excelType != ExcelType.XLSX_DIRECT) {
+            throw new IllegalArgumentException("template requires XLSX_DIRECT, got " + excelType);
+        }
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("maxIdle must not be negative");
+        }
+        this.excelType = excelType;
+        this.stringStrategy = stringStrategy;
+        this.maxIdle = maxIdle;
+        this.layouts = Arrays.stream(classes).map(ClassLayout::of).toList();
+        if (maxIdle > 0) {
+            this.idleSlots.incrementAndGet();
+            this.idle.push(this.newStyleHost());
+        }
+    }
+
+    /**
+     * 注册模板
+     *
+     * @param excelType excel类型，仅支持直写类型
+     * @param classes   导出的数据类型
+     * @return 模板
+     * @throws IllegalArgumentException excel类型不是直写类型
+     */
+    public static ExcelTemplate of(@NonNull ExcelType excelType, @NonNull Class<?>... classes) {
+        return new ExcelTemplate(excelType, StringStrategy.DEFAULT, DEFAULT_MAX_IDLE, classes);
+    }
+
+    /**
+     * 注册模板
+     *
+     * @param excelType      excel类型，仅支持直写类型
+     * @param stringStrategy 字符串存储策略，直写类型均为内联字符串
+     * @param maxIdle        池中最多保留的空闲workbook数，超出时关闭归还的workbook，为0时不复用
+     * @param classes        导出的数据类型
+     * @return 模板
+     * @throws IllegalArgumentException excel类型不是直写类型或maxIdle为负数
+     */
+    public static ExcelTemplate of(@NonNull ExcelType excelType, @NonNull StringStrategy stringStrategy, int maxIdle,
+                                   @NonNull Class<?>... classes) {
+        return new ExcelTemplate(excelType, stringStrategy, maxIdle, classes);
+    }
+
+    /**
+     * 创建builder
+     * 优先复用池中的workbook，池为空时新建并预先创建样式
+     *
+     * @return 新的builder
+     */
+    public ExcelBuilder newBuilder() {
+        if (this.maxIdle == 0) {
+            return new ExcelBuilder(this.excelType, this.stringStrategy);
+        }
+        StyleHost host = this.idle.pollFirst();
+        if (host == null) {
+            host = this.newStyleHost();
+        } else {
+            this.idleSlots.decrementAndGet();
+        }
+        return new ExcelBuilder(this, host.getWorkbook(), host.getStyleRegistry());
+    }
+
+    /**
+     * @return excel类型
+     */
+    public ExcelType excelType() {
+        return this.excelType;
+    }
+
+    /**
+     * @return 池中空闲的workbook数
+     */
+    public int idleCount() {
+        return this.idle.size();
+    }
+
+    /**
+     * 归还builder使用的workbook及样式注册表，由builder关闭时调用一次
+     *
+     * @param workbook      workbook
+     * @param styleRegistry 样式注册表
+     */
+    void release(XSSFWorkbook workbook, StyleRegistry styleRegistry) {
+        styleRegistry.metrics(ExportMetrics.NOOP, this.excelType);
+        styleRegistry.resetCounts();
+        if (this.reserveIdleSlot()) {
+            this.idle.offerFirst(new StyleHost(workbook, styleRegistry));
+            return;
+        }
+        try {
+            workbook.close();
+        } catch (IOException e) {
+            log.warn("template workbook close failed", e);
+        }
+    }
+
+    /**
+     * 预留一个空闲位置
+     *
+     * @return 池中已满时为false
+     */
+    private boolean reserveIdleSlot() {
+        int slots;
+        do {
+            slots = this.idleSlots.get();
+            if (slots >= this.maxIdle) {
+                return false;
+            }
+        } while (!this.idleSlots.compareAndSet(slots, slots + 1));
+        return true;
+    }
+
+    /**
+     * 新建workbook及样式注册表，预先创建数据类型的表头及单元格样式
+     */
+    private StyleHost newStyleHost() {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        StyleRegistry styleRegistry = new StyleRegistry(workbook);
+        for (ClassLayout layout : this.layouts) {
+            styleRegistry.indices(layout.getHeaderTemplate());
+            for (SheetBuilder.CommonParam param : layout.getCells()) {
+                styleRegistry.style(param.styleKey());
+            }
+            for (SheetBuilder.CommonParam param : layout.getModules()) {
+                styleRegistry.style(param.styleKey());
+            }
+        }
+        styleRegistry.resetCounts();
+        return new StyleHost(workbook, styleRegistry);
+    }
+
+    /**
+     * 样式宿主
+     */
+    @Value
+    private static class StyleHost {
+        /**
+         * 仅承载样式表的workbook
+         */
+        XSSFWorkbook workbook;
+        /**
+         * 样式注册表
+         */
+        StyleRegistry styleRegistry;
+    }
+}
@@ -0,0 +1,105 @@
+package com.syl.exsilent.builder;
+
+/**
+ * 导出指标
+ * builder在追加、构建、写入过程中回调，默认不记录；Spring Boot应用中存在MeterRegistry时自动使用Micrometer实现。
+ * 单元格数、追加耗时等按批次（每批次最多256条数据）回调，而不是逐个单元格回调，开启后对吞吐量的影响可忽略
+ *
+ * @since 2023.6.23
+ */
+public interface ExportMetrics {
+    /**
+     * 不记录任何指标
+     */
+    ExportMetrics NOOP = new ExportMetrics() {
+    };
+
+    /**
+     * 获取工作表的指标，创建工作表时调用一次
+     *
+     * @param sheetName 工作表名称，续表为首个工作表的名称
+     * @param excelType excel类型
+     * @return 工作表指标
+     */
+    default SheetMetrics sheet(String sheetName, ExcelBuilder.ExcelType excelType) {
+        return SheetMetrics.NOOP;
+    }
+
+    /**
+     * 新建样式
+     *
+     * @param excelType excel类型
+     */
+    default void styleCreated(ExcelBuilder.ExcelType excelType) {
+    }
+
+    /**
+     * 新建字体
+     *
+     * @param excelType excel类型
+     */
+    default void fontCreated(ExcelBuilder.ExcelType excelType) {
+    }
+
+    /**
+     * workbook写入输出完成
+     *
+     * @param excelType excel类型
+     * @param bytes     写入的字节数，流式输出时包含append过程中已写入的字节
+     * @param nanos     写入耗时
+     */
+    default void written(ExcelBuilder.ExcelType excelType, long bytes, long nanos) {
+    }
+
+    /**
+     * 工作表指标
+     */
+    interface SheetMetrics {
+        /**
+         * 不记录任何指标
+         */
+        SheetMetrics NOOP = new SheetMetrics() {
+        };
+
+        /**
+         * 追加一批单元格
+         *
+         * @param cells 单元格数
+         * @param nanos 持有工作表锁的耗时
+         */
+        default void appended(long cells, long nanos) {
+        }
+
+        /**
+         * 等待工作表锁
+         *
+         * @param nanos 等待耗时
+         */
+        default void lockWaited(long nanos) {
+        }
+
+        /**
+         * 行写入工作表
+         *
+         * @param rows 行数
+         */
+        default void rowsEmitted(long rows) {
+        }
+
+        /**
+         * 写入合并区域
+         *
+         * @param regions 合并区域数
+         */
+        default void mergedRegions(long regions) {
+        }
+
+        /**
+         * 构建工作表
+         *
+         * @param nanos 构建耗时，为准备及提交阶段耗时之和
+         */
+        default void built(long nanos) {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.syl.exsilent.builder;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 异步导出结果
+ * 写入失败时future以异常结束，不产生导出结果；关闭workbook、删除临时文件等收尾失败不影响已写入的内容，记录在failures中
+ *
+ * @since 2023.6.23
+ */
+@Value
+public class ExportResult {
+    /**
+     * excel类型
+     */
+    ExcelBuilder.ExcelType excelType;
+    /**
+     * 写入输出的字节数
+     */
+    long bytesWritten;
+    /**
+     * 构建及写入耗时，不含在线程池中排队的时间
+     */
+    Duration duration;
+    /**
+     * 收尾阶段的失败
+     */
+    List<Throwable> failures;
+
+    /**
+     * @return 收尾阶段是否全部成功
+     */
+    public boolean isClean() {
+        return this.failures.isEmpty();
+    }
+}
@@ -0,0 +1,182 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.builder.SheetBuilder.CommonParam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表头模板
+ * 类布局的表头渲染结果：单元格的相对位置、名称、样式属性，相对的合并区域及各列占用的行数，
+ * 与workbook、工作表及起始行均无关，随类布局按类缓存。
+ * 表头各列的待插入行相同时，写入工作表只需按起始行平移复制，样式下标由各workbook的样式注册表按模板缓存
+ *
+ * @since 2023.6.23
+ */
+final class HeaderTemplate {
+    /**
+     * 单元格相对行号
+     */
+    private final int[] rows;
+    /**
+     * 单元格列号
+     */
+    private final int[] cols;
+    /**
+     * 单元格值，即表头名称
+     */
+    private final String[] names;
+    /**
+     * 单元格样式属性
+     */
+    private final StyleRegistry.StyleKey[] styleKeys;
+    /**
+     * 合并区域，每4个元素依次为相对起始行、相对结束行、起始列、结束列
+     */
+    private final int[] regions;
+    /**
+     * 各列占用的行数，长度即表头覆盖的列数
+     */
+    private final int[] heights;
+    /**
+     * 写入表头后的全局列数
+     */
+    private final int endColNum;
+
+    private HeaderTemplate(int[] rows, int[] cols, String[] names, StyleRegistry.StyleKey[] styleKeys, int[] regions,
+                           int[] heights, int endColNum) {
+        this.rows = rows;
+        this.cols = cols;
+        this.names = names;
+        this.styleKeys = styleKeys;
+        this.regions = regions;
+        this.heights = heights;
+        this.endColNum = endColNum;
+    }
+
+    /**
+     * 从第0行开始渲染表头，单元格位置、合并区域及列号的推进方式与逐个写入工作表时一致
+     *
+     * @param headers 表头块列表
+     * @return 表头模板
+     */
+    static HeaderTemplate of(List<ClassLayout.HeaderBlock> headers) {
+        ColumnSkyline skyline = new ColumnSkyline();
+        List<CommonParam> params = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<Integer> regions = new ArrayList<>();
+        int colNum = 0;
+        for (ClassLayout.HeaderBlock block : headers) {
+            for (List<CommonParam> tier : block.getTiers()) {
+                int localColNum = colNum;
+                for (CommonParam param : tier) {
+                    int row = skyline.get(colNum);
+                    params.add(param);
+                    positions.add(row);
+                    positions.add(colNum);
+                    if (param.getRowCount() != 1 || param.getColCount() != 1) {
+                        regions.add(row);
+                        regions.add(row + param.getRowCount() - 1);
+                        regions.add(colNum);
+                        regions.add(colNum + param.getColCount() - 1);
+                    }
+                    skyline.add(colNum, param.getColCount(), param.getRowCount());
+                    colNum += param.getColCount();
+                }
+                // 嵌套表头每层结束后回到起始列
+                if (block.isNested()) {
+                    colNum = localColNum;
+                }
+            }
+        }
+        int size = params.size();
+        int[] rows = new int[size];
+        int[] cols = new int[size];
+        String[] names = new String[size];
+        StyleRegistry.StyleKey[] styleKeys = new StyleRegistry.StyleKey[size];
+        for (int i = 0; i < size; i++) {
+            CommonParam param = params.get(i);
+            rows[i] = positions.get(i << 1);
+            cols[i] = positions.get((i << 1) + 1);
+            names[i] = param.getName();
+            styleKeys[i] = param.styleKey(param.getName());
+        }
+        int[] heights = new int[skyline.width()];
+        for (int col = 0; col < heights.length; col++) {
+            heights[col] = skyline.get(col);
+        }
+        return new HeaderTemplate(rows, cols, names, styleKeys,
+                regions.stream().mapToInt(Integer::intValue).toArray(), heights, colNum);
+    }
+
+    /**
+     * @return 单元格数量
+     */
+    int size() {
+        return this.rows.length;
+    }
+
+    int row(int i) {
+        return this.rows[i];
+    }
+
+    int col(int i) {
+        return this.cols[i];
+    }
+
+    String name(int i) {
+        return this.names[i];
+    }
+
+    StyleRegistry.StyleKey styleKey(int i) {
+        return this.styleKeys[i];
+    }
+
+    /**
+     * @return 合并区域数量
+     */
+    int regionCount() {
+        return this.regions.length >> 2;
+    }
+
+    int regionFirstRow(int i) {
+        return this.regions[i << 2];
+    }
+
+    int regionLastRow(int i) {
+        return this.regions[(i << 2) + 1];
+    }
+
+    int regionFirstCol(int i) {
+        return this.regions[(i << 2) + 2];
+    }
+
+    int regionLastCol(int i) {
+        return this.regions[(i << 2) + 3];
+    }
+
+    /**
+     * @return 各列占用的行数，不可修改
+     */
+    int[] heights() {
+        return this.heights;
+    }
+
+    /**
+     * @return 表头占用的行数，无表头时为0
+     */
+    int height() {
+        int height = 0;
+        for (int h : this.heights) {
+            height = Math.max(height, h);
+        }
+        return height;
+    }
+
+    /**
+     * @return 写入表头后的全局列数
+     */
+    int endColNum() {
+        return this.endColNum;
+    }
+}
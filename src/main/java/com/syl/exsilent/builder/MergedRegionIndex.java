@@ -0,0 +1,72 @@
+package com.syl.exsilent.builder;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合并区域重叠索引
+ * 按16行×16列的网格登记合并区域，新增区域时只与其覆盖网格中的区域比较，
+ * 单次检查的耗时与区域总数无关；通过检查的区域可跳过POI逐个比较全部已有区域的校验直接写入工作表
+ *
+ * @since 2023.6.23
+ */
+final class MergedRegionIndex {
+    /**
+     * 网格边长的位移，网格为16行×16列
+     */
+    private static final int SHIFT = 4;
+    /**
+     * 网格
+     * k-网格行号、列号
+     * v-与网格相交的合并区域
+     */
+    private final Map<Long, List<CellRangeAddress>> grid = new HashMap<>();
+
+    /**
+     * 查找与合并区域重叠的已登记区域
+     *
+     * @param region 合并区域
+     * @return 与之重叠的已登记区域，不重叠时为null
+     */
+    CellRangeAddress overlapping(CellRangeAddress region) {
+        int firstRowBlock = region.getFirstRow() >>> SHIFT;
+        int lastRowBlock = region.getLastRow() >>> SHIFT;
+        int firstColBlock = region.getFirstColumn() >>> SHIFT;
+        int lastColBlock = region.getLastColumn() >>> SHIFT;
+        for (int rowBlock = firstRowBlock; rowBlock <= lastRowBlock; rowBlock++) {
+            for (int colBlock = firstColBlock; colBlock <= lastColBlock; colBlock++) {
+                List<CellRangeAddress> regions = this.grid.get(key(rowBlock, colBlock));
+                if (regions == null) {
+                    continue;
+                }
+                for (CellRangeAddress existing : regions) {
+                    if (existing.intersects(region)) {
+                        return existing;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 登记合并区域，调用方需先通过{@link #overlapping(CellRangeAddress)}确认不重叠
+     *
+     * @param region 合并区域
+     */
+    void add(CellRangeAddress region) {
+        for (int rowBlock = region.getFirstRow() >>> SHIFT; rowBlock <= region.getLastRow() >>> SHIFT; rowBlock++) {
+            for (int colBlock = region.getFirstColumn() >>> SHIFT; colBlock <= region.getLastColumn() >>> SHIFT; colBlock++) {
+                this.grid.computeIfAbsent(key(rowBlock, colBlock), k -> new ArrayList<>(4)).add(region);
+            }
+        }
+    }
+
+    private static long key(int rowBlock, int colBlock) {
+        return (long) rowBlock << 32 | colBlock;
+    }
+}
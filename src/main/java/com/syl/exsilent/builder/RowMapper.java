@@ -0,0 +1,417 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.builder.SheetBuilder.CommonParam;
+import com.syl.exsilent.util.FieldAccessor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 行映射器
+ * 接收事件式读取器逐个推送的单元格，将表头行解析为列映射，数据行转换为注解类实例并按批次回调；
+ * 只保留当前行的值与未满的批次，内存占用与行数无关
+ * 表头按@ExcelField平铺名称（如"成绩/语文"）匹配列，横向合并的上层表头空白单元格沿用左侧的名称；
+ * 无表头时按导出时的列位置匹配
+ * 非线程安全
+ *
+ * @param <T> 注解类
+ * @since 2023.6.23
+ */
+@Slf4j
+final class RowMapper<T> {
+    /**
+     * 层级表头分隔符
+     */
+    private static final String HEADER_SEPARATOR = "/";
+    /**
+     * 注解类
+     */
+    private final Class<T> type;
+    /**
+     * 数据单元格参数列表
+     */
+    private final List<CommonParam> cells;
+    /**
+     * 与数据单元格一一对应的平铺表头名称
+     */
+    private final List<String> headerNames;
+    /**
+     * 表头行数
+     */
+    private final int headerRows;
+    /**
+     * 每批实例数量
+     */
+    private final int batchSize;
+    /**
+     * 批次回调
+     */
+    private final Consumer<List<T>> consumer;
+    /**
+     * 实例构造方法：普通类为无参构造，record为规范构造且参数展开为Object[]
+     */
+    private final MethodHandle constructor;
+    /**
+     * record构造参数下标对应的数据单元格下标，普通类为null
+     */
+    private final int[] componentCells;
+    /**
+     * record构造参数的默认值，基本类型为0值
+     */
+    private final Object[] componentDefaults;
+    /**
+     * 表头行单元格文本，k-行号 v-列号与文本的映射
+     */
+    private final Map<Integer, Map<Integer, String>> headerCells = new TreeMap<>();
+    /**
+     * 列号对应的数据单元格下标，-1为未映射，解析完表头后生成
+     */
+    private int[] columnCells;
+    /**
+     * 当前行的值，下标与数据单元格一致
+     */
+    private final Object[] values;
+    /**
+     * 当前行号
+     */
+    private int rowNum;
+    /**
+     * 当前行是否有值
+     */
+    private boolean hasValue;
+    /**
+     * 未满的批次
+     */
+    private List<T> batch;
+    /**
+     * 已读取的实例数量
+     */
+    private long count = 0;
+
+    RowMapper(Class<T> type, int headerRows, int batchSize, Consumer<List<T>> consumer) {
+        ClassLayout layout = ClassLayout.of(type);
+        this.type = type;
+        this.cells = layout.getCells();
+        this.headerNames = layout.flatHeaderNames(HEADER_SEPARATOR);
+        this.headerRows = headerRows;
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+        this.values = new Object[this.cells.size()];
+        this.batch = new ArrayList<>(batchSize);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            if (type.isRecord()) {
+                RecordComponent[] components = type.getRecordComponents();
+                Class<?>[] parameterTypes = new Class<?>[components.length];
+                this.componentCells = new int[components.length];
+                this.componentDefaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    parameterTypes[i] = components[i].getType();
+                    this.componentCells[i] = -1;
+                    for (int j = 0; j < this.cells.size(); j++) {
+                        if (this.cells.get(j).getFieldName().equals(components[i].getName())) {
+                            this.componentCells[i] = j;
+                        }
+                    }
+                    if (parameterTypes[i].isPrimitive()) {
+                        this.componentDefaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+                    }
+                }
+                this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                this.componentCells = null;
+                this.componentDefaults = null;
+                this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                for (CommonParam param : this.cells) {
+                    if (!param.getAccessor().isWritable()) {
+                        log.warn("field {}.{} is not writable, its column will be skipped", type.getName(), param.getFieldName());
+                    }
+                }
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " requires an accessible no-arg constructor or must be a record", e);
+        }
+    }
+
+    /**
+     * 开始新行
+     *
+     * @param rowNum 行号
+     */
+    void startRow(int rowNum) {
+        this.rowNum = rowNum;
+        if (this.hasValue) {
+            Arrays.fill(this.values, null);
+            this.hasValue = false;
+        }
+    }
+
+    /**
+     * 推送当前行的单元格
+     *
+     * @param col     列号
+     * @param text    格式化后的文本，可为null
+     * @param raw     数值单元格的原始值
+     * @param numeric 是否为数值单元格（含日期）
+     */
+    void cell(int col, String text, double raw, boolean numeric) {
+        if (this.rowNum < this.headerRows) {
+            if (text != null && !text.isEmpty()) {
+                this.headerCells.computeIfAbsent(this.rowNum, k -> new HashMap<>()).put(col, text.trim());
+            }
+            return;
+        }
+        if (this.columnCells == null) {
+            this.resolveColumns();
+        }
+        if (col >= this.columnCells.length || this.columnCells[col] < 0) {
+            return;
+        }
+        if (!numeric && (text == null || text.isEmpty())) {
+            return;
+        }
+        int cellIndex = this.columnCells[col];
+        Object value = this.convert(this.cells.get(cellIndex).getAccessor().getFieldType(), col, text, raw, numeric);
+        if (value != null) {
+            this.values[cellIndex] = value;
+            this.hasValue = true;
+        }
+    }
+
+    /**
+     * 结束当前行，非空的数据行转换为实例
+     */
+    void endRow() {
+        if (this.rowNum < this.headerRows || !this.hasValue) {
+            return;
+        }
+        this.batch.add(this.instantiate());
+        this.count++;
+        if (this.batch.size() >= this.batchSize) {
+            this.flush();
+        }
+    }
+
+    /**
+     * 回调剩余的实例
+     *
+     * @return 读取的实例总数
+     */
+    long finish() {
+        this.flush();
+        return this.count;
+    }
+
+    private void flush() {
+        if (this.batch.isEmpty()) {
+            return;
+        }
+        List<T> full = this.batch;
+        this.batch = new ArrayList<>(this.batchSize);
+        this.consumer.accept(full);
+    }
+
+    private T instantiate() {
+        try {
+            if (this.componentCells != null) {
+                Object[] args = new Object[this.componentCells.length];
+                for (int i = 0; i < args.length; i++) {
+                    int cellIndex = this.componentCells[i];
+                    Object value = cellIndex < 0 ? null : this.values[cellIndex];
+                    args[i] = value == null ? this.componentDefaults[i] : value;
+                }
+                return this.type.cast(this.constructor.invokeExact(args));
+            }
+            T t = this.type.cast(this.constructor.invokeExact());
+            for (int i = 0; i < this.values.length; i++) {
+                FieldAccessor accessor = this.cells.get(i).getAccessor();
+                if (this.values[i] != null && accessor.isWritable()) {
+                    accessor.set(t, this.values[i]);
+                }
+            }
+            return t;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 根据表头行生成列映射
+     * 每列的名称为其自上而下各表头行文本的拼接；上层表头的空白单元格在下层有表头时视为横向合并，沿用左侧的名称
+     */
+    private void resolveColumns() {
+        int width = 0;
+        for (CommonParam param : this.cells) {
+            width += param.getColCount();
+        }
+        for (Map<Integer, String> row : this.headerCells.values()) {
+            for (int col : row.keySet()) {
+                width = Math.max(width, col + 1);
+            }
+        }
+        this.columnCells = new int[width];
+        Arrays.fill(this.columnCells, -1);
+        if (this.headerCells.isEmpty()) {
+            int colNum = 0;
+            for (int i = 0; i < this.cells.size(); i++) {
+                this.columnCells[colNum] = i;
+                colNum += this.cells.get(i).getColCount();
+            }
+            return;
+        }
+        List<Map<Integer, String>> rows = new ArrayList<>(this.headerCells.values());
+        String[] columnNames = new String[width];
+        for (int col = 0; col < width; col++) {
+            StringBuilder name = new StringBuilder();
+            for (int tier = 0; tier < rows.size(); tier++) {
+                String text = rows.get(tier).get(col);
+                if (text == null && this.hasDeeperHeader(rows, tier, col)) {
+                    text = this.spanningHeader(rows, tier, col);
+                }
+                if (text != null) {
+                    if (name.length() > 0) {
+                        name.append(HEADER_SEPARATOR);
+                    }
+                    name.append(text);
+                }
+            }
+            columnNames[col] = name.toString();
+        }
+        for (int i = 0; i < this.cells.size(); i++) {
+            String expected = this.headerNames.get(i);
+            int col = this.findColumn(columnNames, expected);
+            if (col < 0) {
+                log.warn("header {} of {}.{} not found, column skipped", expected, this.type.getName(), this.cells.get(i).getFieldName());
+            } else {
+                this.columnCells[col] = i;
+            }
+        }
+    }
+
+    private boolean hasDeeperHeader(List<Map<Integer, String>> rows, int tier, int col) {
+        for (int deeper = tier + 1; deeper < rows.size(); deeper++) {
+            if (rows.get(deeper).containsKey(col)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 向左查找横向合并的表头名称，遇到同样以下层表头结束的空白列继续向左
+     */
+    private String spanningHeader(List<Map<Integer, String>> rows, int tier, int col) {
+        for (int left = col - 1; left >= 0; left--) {
+            String text = rows.get(tier).get(left);
+            if (text != null) {
+                return text;
+            }
+            if (!this.hasDeeperHeader(rows, tier, left)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按平铺名称查找未映射的列，找不到时按最下层名称查找且要求唯一
+     */
+    private int findColumn(String[] columnNames, String expected) {
+        if (expected.isEmpty()) {
+            return -1;
+        }
+        for (int col = 0; col < columnNames.length; col++) {
+            if (this.columnCells[col] < 0 && expected.equals(columnNames[col])) {
+                return col;
+            }
+        }
+        String leaf = leaf(expected);
+        int found = -1;
+        for (int col = 0; col < columnNames.length; col++) {
+            if (this.columnCells[col] < 0 && !columnNames[col].isEmpty() && leaf.equals(leaf(columnNames[col]))) {
+                if (found >= 0) {
+                    return -1;
+                }
+                found = col;
+            }
+        }
+        return found;
+    }
+
+    private static String leaf(String name) {
+        return name.substring(name.lastIndexOf(HEADER_SEPARATOR) + 1);
+    }
+
+    /**
+     * 将单元格转换为字段类型，无法转换时记录日志并返回null
+     *
+     * @param fieldType 字段类型
+     * @param col       列号
+     * @param text      格式化后的文本
+     * @param raw       数值单元格的原始值
+     * @param numeric   是否为数值单元格
+     * @return 字段值
+     */
+    private Object convert(Class<?> fieldType, int col, String text, double raw, boolean numeric) {
+        try {
+            if (fieldType == String.class) {
+                return text;
+            }
+            String trimmed = text == null ? "" : text.trim();
+            if (!numeric && trimmed.isEmpty()) {
+                return null;
+            }
+            if (fieldType == Integer.class || fieldType == int.class) {
+                return numeric ? (int) raw : Integer.valueOf(trimmed);
+            } else if (fieldType == Long.class || fieldType == long.class) {
+                return numeric ? (long) raw : Long.valueOf(trimmed);
+            } else if (fieldType == Double.class || fieldType == double.class) {
+                return numeric ? raw : Double.valueOf(trimmed);
+            } else if (fieldType == BigDecimal.class) {
+                return numeric ? BigDecimal.valueOf(raw) : new BigDecimal(trimmed);
+            } else if (fieldType == Float.class || fieldType == float.class) {
+                return numeric ? (float) raw : Float.valueOf(trimmed);
+            } else if (fieldType == Short.class || fieldType == short.class) {
+                return numeric ? (short) raw : Short.valueOf(trimmed);
+            } else if (fieldType == Byte.class || fieldType == byte.class) {
+                return numeric ? (byte) raw : Byte.valueOf(trimmed);
+            } else if (fieldType == Boolean.class || fieldType == boolean.class) {
+                return numeric ? raw != 0 : "1".equals(trimmed) || Boolean.parseBoolean(trimmed);
+            } else if (fieldType == LocalDate.class) {
+                return numeric ? DateUtil.getLocalDateTime(raw).toLocalDate() : LocalDate.parse(trimmed);
+            } else if (fieldType == LocalDateTime.class) {
+                return numeric ? DateUtil.getLocalDateTime(raw) : LocalDateTime.parse(trimmed.replace(' ', 'T'));
+            } else if (fieldType == Date.class && numeric) {
+                return DateUtil.getJavaDate(raw);
+            } else if (fieldType == Calendar.class && numeric) {
+                return DateUtil.getJavaCalendar(raw);
+            } else if (fieldType.isEnum()) {
+                return enumValue(fieldType, trimmed);
+            }
+            log.warn("row {} column {}: {} can not be converted to {}", this.rowNum, col, text, fieldType.getName());
+        } catch (RuntimeException e) {
+            log.warn("row {} column {}: {} can not be converted to {}", this.rowNum, col, text, fieldType.getName(), e);
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> fieldType, String name) {
+        return Enum.valueOf((Class<? extends Enum>) fieldType, name);
+    }
+}
@@ -1,21 +1,32 @@
 package com.syl.exsilent.builder;
 
 import com.syl.exsilent.annontion.*;
-import com.syl.exsilent.model.CellModel;
 import com.syl.exsilent.util.ExcelUtil;
+import com.syl.exsilent.util.FieldAccessor;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
 
-import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * 工作表 builder
@@ -24,6 +35,18 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 public class SheetBuilder {
+    /**
+     * 增量输出时每批次的数据条数
+     */
+    private static final int BATCH_SIZE = 256;
+    /**
+     * 未指定格式时LocalDate的默认格式
+     */
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd";
+    /**
+     * 未指定格式时Date、Calendar、LocalDateTime的默认格式
+     */
+    private static final String DEFAULT_DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
     /**
      * 工作表实例引用
      */
@@ -33,23 +56,38 @@ public class SheetBuilder {
      */
     private final Workbook workbook;
     /**
-     * 单元格列表-存储构造过程中生成的单元格
+     * workbook样式注册表引用
      */
-    private final List<CellModel> cells = new ArrayList<>();
+    private final StyleRegistry styleRegistry;
+    /**
+     * 工作表xml直写器，仅直写类型使用，此时工作表实例为null
+     */
+    private final SheetXmlWriter xmlWriter;
+    /**
+     * 字符串存储策略，仅非流式xlsx工作表使用，其他类型为null
+     */
+    private final StringPolicy stringPolicy;
+    /**
+     * 单元格缓存-存储构造过程中生成的单元格
+     */
+    private final CellBuffer cells = new CellBuffer();
     /**
      * 合并区域列表-存储构造过程中生成的单元格合并数据
      */
     private final List<CellRangeAddress> regions = new ArrayList<>();
+    /**
+     * 合并区域重叠索引，登记已追加的全部合并区域，构建后不清空；
+     * 并发追加时线程内独立生成的数据块为null，数据块放入工作表时再检查
+     */
+    private final MergedRegionIndex regionIndex;
     /**
      * 全局列数
      */
     private final AtomicInteger colNum = new AtomicInteger(0);
     /**
-     * 全局待插入行数map
-     * k-colNum
-     * v-rowNum
+     * 全局各列待插入行数
      */
-    private final ConcurrentHashMap<Integer, Integer> colRowMap = new ConcurrentHashMap<>();
+    private final ColumnSkyline skyline = new ColumnSkyline();
     /**
      * 数据是否修改
      */
@@ -58,108 +96,200 @@ public class SheetBuilder {
      * 列宽、行高数据
      */
     private ExcelMeasure measure = null;
+    /**
+     * 是否增量输出：所有列的待插入行都越过某行后，立即将该行写入工作表，
+     * 缓存的单元格仅限于最高的合并块，不随数据量增长
+     */
+    private volatile boolean incremental = false;
+    /**
+     * 已写入工作表的行数，该行号之前的行均已输出
+     */
+    private int emittedRowNum = 0;
+    /**
+     * 工作表格式的最大行数，xls为65536，xlsx为1048576
+     */
+    private final int maxRows;
+    /**
+     * 续表工厂，行数达到上限时创建"名称 (2)"形式的续表，为null时不支持续表
+     */
+    private Supplier<SheetBuilder> continuationFactory = null;
+    /**
+     * 续表，行数达到上限后的数据写入续表
+     */
+    private volatile SheetBuilder continuation = null;
+    /**
+     * 工作表指标
+     */
+    private volatile ExportMetrics.SheetMetrics metrics = ExportMetrics.SheetMetrics.NOOP;
+    /**
+     * 最近一次构造准备阶段的耗时，提交阶段一并记录
+     */
+    private long prepareNanos = 0;
 
-    SheetBuilder(Workbook workbook, String sheetName) {
+    SheetBuilder(Workbook workbook, StyleRegistry styleRegistry, String sheetName, StringStrategy stringStrategy) {
         this.workbook = workbook;
+        this.styleRegistry = styleRegistry;
         this.sheet = workbook.createSheet(sheetName);
+        this.xmlWriter = null;
+        this.stringPolicy = this.sheet instanceof XSSFSheet ? new StringPolicy(stringStrategy) : null;
+        this.regionIndex = new MergedRegionIndex();
+        this.maxRows = this.sheet instanceof HSSFSheet
+                ? SpreadsheetVersion.EXCEL97.getMaxRows() : SpreadsheetVersion.EXCEL2007.getMaxRows();
+    }
+
+    /**
+     * 直写类型的builder，单元格不经过POI对象模型，直接写入工作表xml
+     *
+     * @param styleRegistry workbook样式注册表
+     * @param xmlWriter     工作表xml直写器
+     */
+    SheetBuilder(StyleRegistry styleRegistry, SheetXmlWriter xmlWriter) {
+        this.workbook = null;
+        this.styleRegistry = styleRegistry;
+        this.sheet = null;
+        this.xmlWriter = xmlWriter;
+        this.stringPolicy = null;
+        this.regionIndex = new MergedRegionIndex();
+        this.maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    }
+
+    /**
+     * 不关联工作表的builder，仅用于并发追加时在线程内独立生成数据块，行号从0开始
+     *
+     * @param styleRegistry workbook样式注册表
+     */
+    private SheetBuilder(StyleRegistry styleRegistry) {
+        this.workbook = null;
+        this.styleRegistry = styleRegistry;
+        this.sheet = null;
+        this.xmlWriter = null;
+        this.stringPolicy = null;
+        this.regionIndex = null;
+        this.maxRows = Integer.MAX_VALUE;
     }
 
     /**
      * 向工作表中新增数据
      * 最底层方法
      *
-     * @param val   单元格数据
+     * @param val   单元格数据，数值、日期、布尔值写入对应类型的单元格，null写入空白单元格
      * @param param 单元格参数
      */
-    private synchronized void append(@NonNull String val, @NonNull CommonParam param) {
-        this.isDataUpdated.set(true);
-        // 样式
-        CellStyle style = this.workbook.createCellStyle();
-        style.setAlignment(param.getHorizontalAlignment());
-        style.setVerticalAlignment(param.getVerticalAlignment());
-        style.setWrapText(param.isWrapText());
-        Font font = this.workbook.createFont();
-        font.setFontName(param.getFont());
-        font.setFontHeightInPoints(param.getFontSize());
-        font.setColor(param.getFontColor());
-        font.setBold(param.isFontBold());
-        font.setItalic(param.isFontItalic());
-        style.setFont(font);
-
-        // 单元格合并
-        int rowCount = param.getRowCount();
-        int colCount = param.getColCount();
+    private synchronized void append(Object val, @NonNull CommonParam param) {
         int curCol = this.colNum.get();
         int rowNum = this.getRowNum(curCol);
+        if (this.incremental && rowNum < this.emittedRowNum) {
+            throw new IllegalStateException("cell at row " + rowNum + " column " + curCol + " of sheet " + this.sheetName()
+                    + " falls in the " + this.emittedRowNum + " rows already emitted by incremental output");
+        }
+        // 单元格合并，先检查重叠，失败时不改变任何状态
+        int rowCount = param.getRowCount();
+        int colCount = param.getColCount();
+        CellRangeAddress address = null;
         if (rowCount != 1 || colCount != 1) {
-            CellRangeAddress address = new CellRangeAddress(rowNum, rowNum + rowCount - 1, curCol, curCol + colCount - 1);
-            this.regions.add(address);
+            address = new CellRangeAddress(rowNum, rowNum + rowCount - 1, curCol, curCol + colCount - 1);
+            this.checkRegion(address);
+        }
+        this.isDataUpdated.set(true);
+        // 样式，相同属性共享同一样式
+        short style = this.styleRegistry.index(param, val);
+        if (address != null) {
+            this.addRegion(address);
         }
 
-        CellModel cellModel = new CellModel();
-        cellModel.setValue(val);
-        cellModel.setStyle(style);
-        cellModel.setRowNum(rowNum);
-        cellModel.setColNum(curCol);
-        this.cells.add(cellModel);
+        this.cells.add(rowNum, curCol, style, val);
     }
 
     /**
-     * 向工作表中新增表头数据
+     * 检查合并区域，与已有合并区域重叠时立即失败，而不是在构建时由POI逐个比较全部已有区域
+     * 调用方需持有当前对象的锁，并在写入单元格、样式等任何状态之前检查
      *
-     * @param excelField 表头注解参数
+     * @param region 合并区域
      */
-    private void append(@NonNull ExcelField excelField) {
-        this.append(excelField.name(), CommonParam.fromXlsField(excelField));
+    private void checkRegion(CellRangeAddress region) {
+        CellRangeAddress overlapped = this.regionIndex != null ? this.regionIndex.overlapping(region) : null;
+        if (overlapped != null) {
+            throw new IllegalStateException("merged region " + region.formatAsString() + " overlaps "
+                    + overlapped.formatAsString() + " in sheet " + this.sheetName());
+        }
     }
 
     /**
-     * 向工作表中新增嵌套表头数据
+     * 新增已通过{@link #checkRegion(CellRangeAddress)}检查的合并区域
+     * 调用方需持有当前对象的锁
      *
-     * @param excelFields 嵌套表头注解参数
+     * @param region 合并区域
      */
-    private void append(@NonNull ExcelFields excelFields) {
-        ExcelField[] excelFieldArr = excelFields.value();
-        if (excelFieldArr.length == 0) {
-            return;
+    private void addRegion(CellRangeAddress region) {
+        if (this.regionIndex != null) {
+            this.regionIndex.add(region);
         }
-        Arrays.sort(excelFieldArr, Comparator.comparingInt(ExcelField::parent));
-        if (excelFieldArr[0].parent() != -1) {
-            log.warn("hierarchical fields without root");
+        this.regions.add(region);
+    }
+
+    /**
+     * 向工作表中新增表头数据
+     * 表头覆盖的各列待插入行相同时（通常如此）按起始行复制表头模板，否则逐个单元格写入
+     *
+     * @param layout 类布局
+     */
+    private synchronized void appendHeaders(@NonNull ClassLayout layout) {
+        HeaderTemplate template = layout.getHeaderTemplate();
+        int baseRow = this.skyline.flatRow(template.heights().length);
+        if (baseRow < 0) {
+            this.renderHeaders(layout);
             return;
         }
-        Map<Integer, List<ExcelField>> tierMap = new TreeMap<>();
-        Map<Integer, Integer> indexTierMap = new HashMap<>();
-        for (ExcelField excelField : excelFieldArr) {
-            if (excelField.parent() == -1) {
-                indexTierMap.put(excelField.index(), 0);
-            } else {
-                Integer parentTier = indexTierMap.get(excelField.parent());
-                if (parentTier == null) {
-                    log.warn("hierarchical fields index set illegally,{} has not parent", excelField.name());
-                } else {
-                    indexTierMap.put(excelField.index(), parentTier + 1);
-                }
-            }
+        long start = System.nanoTime();
+        CellRangeAddress[] regions = new CellRangeAddress[template.regionCount()];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = new CellRangeAddress(baseRow + template.regionFirstRow(i), baseRow + template.regionLastRow(i),
+                    template.regionFirstCol(i), template.regionLastCol(i));
+            this.checkRegion(regions[i]);
         }
-
-        for (ExcelField excelField : excelFieldArr) {
-            Integer tier = indexTierMap.get(excelField.index());
-            if (tier != null) {
-                tierMap.putIfAbsent(tier, new ArrayList<>());
-                tierMap.get(tier).add(excelField);
-            }
+        short[] styles = this.styleRegistry.indices(template);
+        int size = template.size();
+        if (size > 0) {
+            this.isDataUpdated.set(true);
         }
+        for (int i = 0; i < size; i++) {
+            this.cells.add(baseRow + template.row(i), template.col(i), styles[i], template.name(i));
+        }
+        for (CellRangeAddress region : regions) {
+            this.addRegion(region);
+        }
+        this.skyline.add(template.heights());
+        this.colNum.set(template.endColNum());
+        this.emitCompletedRows();
+        this.metrics.appended(size, System.nanoTime() - start);
+    }
 
-        tierMap.forEach((k, v) -> {
-            int localColNum = this.colNum.get();
-            for (ExcelField field : v) {
-                this.append(field);
-                this.updateRowNum(this.colNum.get(), field.colCount(), field.rowCount());
-                this.colNum.set(this.colNum.addAndGet(field.colCount()));
+    /**
+     * 逐个单元格写入表头
+     *
+     * @param layout 类布局
+     */
+    private synchronized void renderHeaders(@NonNull ClassLayout layout) {
+        long start = System.nanoTime();
+        int cellCount = 0;
+        this.colNum.set(0);
+        for (ClassLayout.HeaderBlock block : layout.getHeaders()) {
+            for (List<CommonParam> tier : block.getTiers()) {
+                int localColNum = this.colNum.get();
+                for (CommonParam param : tier) {
+                    cellCount++;
+                    this.append(param.getName(), param);
+                    this.updateRowNum(this.colNum.get(), param.getColCount(), param.getRowCount());
+                    this.colNum.set(this.colNum.addAndGet(param.getColCount()));
+                }
+                // 嵌套表头每层结束后回到起始列
+                if (block.isNested()) {
+                    this.colNum.set(localColNum);
+                }
             }
-            this.colNum.set(localColNum);
-        });
+        }
+        this.emitCompletedRows();
+        this.metrics.appended(cellCount, System.nanoTime() - start);
     }
 
     /**
@@ -173,80 +303,185 @@ public class SheetBuilder {
         if (list.isEmpty()) {
             return this;
         }
-        Class<?> clazz = list.get(0).getClass();
-        Field[] fields = clazz.getDeclaredFields();
-
-        // 新增表头数据。按序号排序，过滤未注解字段
-        Map<Integer, ExcelFields> xlsFieldsMap = new HashMap<>();
-        List<ExcelField> excelFields = Arrays.stream(fields)
-                .map(f -> {
-                    ExcelField excelField = f.getAnnotation(ExcelField.class);
-                    ExcelFields excelFieldsAno = f.getAnnotation(ExcelFields.class);
-                    if (excelFieldsAno == null && excelField == null) {
-                        return null;
-                    }
-                    if (excelFieldsAno != null && excelField != null) {
-                        log.warn("@excelField and @excelFields can not be used together");
-                    }
-                    if (excelFieldsAno != null) {
-                        ExcelField[] value = excelFieldsAno.value();
-                        Optional<ExcelField> minOne = Arrays.stream(value).min(Comparator.comparing(ExcelField::parent));
-                        minOne.ifPresent(m -> xlsFieldsMap.put(m.index(), excelFieldsAno));
-                        return minOne.orElse(null);
-                    }
-                    return excelField;
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(ExcelField::index))
-                .toList();
+        return this.append(list.iterator(), ClassLayout.of(list.get(0).getClass()));
+    }
 
-        this.colNum.set(0);
-        for (ExcelField excelField : excelFields) {
-            int index = excelField.index();
-            if (xlsFieldsMap.containsKey(index)) {
-                // xlsFields处理
-                this.append(xlsFieldsMap.get(index));
-            } else {
-                this.append(excelField);
-                this.updateRowNum(this.colNum.get(), excelField.colCount(), excelField.rowCount());
-                this.colNum.set(this.colNum.addAndGet(excelField.colCount()));
+    /**
+     * 向工作表中新增迭代器数据
+     * 按批次逐条拉取，适用于数据库游标、分页查询等无法一次加载到内存的数据源，
+     * 配合流式类型时数据直接从数据源写入输出，内存占用恒定
+     *
+     * @param iterator 数据迭代器
+     * @param clazz    数据类型，用于解析表头及单元格
+     * @param <T>      泛型类
+     * @return 当前builder对象
+     */
+    public <T> SheetBuilder append(@NonNull Iterator<? extends T> iterator, @NonNull Class<T> clazz) {
+        if (!iterator.hasNext()) {
+            return this;
+        }
+        return this.append(iterator, ClassLayout.of(clazz));
+    }
+
+    /**
+     * 向工作表中新增流数据
+     * 流由调用方负责关闭
+     *
+     * @param stream 数据流
+     * @param clazz  数据类型，用于解析表头及单元格
+     * @param <T>    泛型类
+     * @return 当前builder对象
+     * @see #append(Iterator, Class)
+     */
+    public <T> SheetBuilder append(@NonNull Stream<? extends T> stream, @NonNull Class<T> clazz) {
+        return this.append(stream.iterator(), clazz);
+    }
+
+    /**
+     * 向工作表中新增表头及数据
+     *
+     * @param iterator 非空数据迭代器
+     * @param layout   数据类型布局
+     * @return 当前builder对象
+     */
+    private SheetBuilder append(Iterator<?> iterator, ClassLayout layout) {
+        SheetBuilder tail = this.tail();
+        if (tail != this) {
+            tail.append(iterator, layout);
+            return this;
+        }
+        boolean full;
+        synchronized (this) {
+            // 剩余行数容纳不下表头及一条数据时直接写入续表
+            full = this.skyline.max() + layout.getHeaderHeight() + layout.getRecordHeight() > this.maxRows;
+            if (!full) {
+                // 设置列宽、行高及表头
+                this.startLayout(layout);
             }
         }
 
         // 新增内容数据
-        List<CommonParam> params = Arrays.stream(fields)
-                .map(f -> {
-                    ExcelCell excelCell = f.getAnnotation(ExcelCell.class);
-                    if (null == excelCell) {
-                        return null;
+        (full ? this.rollover(layout) : this).appendRecords(iterator, layout);
+        return this;
+    }
+
+    /**
+     * 开始写入类布局的数据：记录列宽、行高（增量输出时行在创建时即需要行高），写入表头，声明字符串存储策略
+     *
+     * @param layout 类布局
+     */
+    private synchronized void startLayout(ClassLayout layout) {
+        this.checkWidth(layout);
+        this.measure(layout);
+        this.appendHeaders(layout);
+        this.declareStrings(layout);
+    }
+
+    /**
+     * 增量输出已输出部分行后，不能再写入更宽的类布局：新增列的待插入行为0，其单元格将落在已输出的行中
+     * 在写入表头前检查，拒绝时工作表保持原样
+     *
+     * @param layout 类布局
+     */
+    private void checkWidth(ClassLayout layout) {
+        int width = layout.getHeaderTemplate().heights().length;
+        if (this.incremental && this.emittedRowNum > 0 && width > this.skyline.width()) {
+            throw new IllegalStateException("sheet " + this.sheetName() + " has emitted " + this.emittedRowNum + " rows over "
+                    + this.skyline.width() + " columns, a layout of " + width + " columns would write into emitted rows; "
+                    + "append the widest layout first or disable incremental output");
+        }
+    }
+
+    /**
+     * 向工作表中新增数据行，每批次结束后输出已完成的行
+     * 下一条数据将超出工作表格式的最大行数时，剩余数据写入续表
+     *
+     * @param iterator 数据迭代器
+     * @param layout   数据类型布局
+     * @return 当前builder对象
+     */
+    private SheetBuilder appendRecords(Iterator<?> iterator, ClassLayout layout) {
+        List<CommonParam> params = layout.getCells();
+        int recordHeight = layout.getRecordHeight();
+        boolean full = false;
+        while (iterator.hasNext() && !full) {
+            // 按批次持有锁，批次内的数据行连续
+            long waitStart = System.nanoTime();
+            synchronized (this) {
+                long lockedAt = System.nanoTime();
+                this.metrics.lockWaited(lockedAt - waitStart);
+                int batchCount = 0;
+                for (; batchCount < BATCH_SIZE && iterator.hasNext(); batchCount++) {
+                    if (this.skyline.max() + recordHeight > this.maxRows) {
+                        full = true;
+                        break;
                     }
-                    CommonParam param = CommonParam.fromXlsCell(excelCell);
-                    param.setFieldName(f.getName());
-                    return param;
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(CommonParam::getIndex))
-                .toList();
-
-        for (T t : list) {
-            this.colNum.set(0);
-            for (CommonParam param : params) {
-                String val = (String) ExcelUtil.getFieldVal(t, param.getFieldName());
-                this.append(val, param);
-                this.updateRowNum(this.colNum.get(), param.getColCount(), param.getRowCount());
-                this.colNum.set(this.colNum.addAndGet(param.getColCount()));
+                    Object t = iterator.next();
+                    this.colNum.set(0);
+                    for (CommonParam param : params) {
+                        this.append(param.value(t), param);
+                        this.updateRowNum(this.colNum.get(), param.getColCount(), param.getRowCount());
+                        this.colNum.set(this.colNum.addAndGet(param.getColCount()));
+                    }
+                }
+                this.emitCompletedRows();
+                this.metrics.appended((long) batchCount * params.size(), System.nanoTime() - lockedAt);
             }
         }
+        if (full) {
+            this.rollover(layout).appendRecords(iterator, layout);
+        }
+        return this;
+    }
+
+    /**
+     * 切换到续表，创建续表的调用方先写入类布局的表头
+     * 同一工作表只切换一次，续表已由其他线程创建时不再重复写入表头，返回最后一个续表接续写入数据
+     *
+     * @param layout 类布局
+     * @return 续表builder
+     */
+    synchronized SheetBuilder rollover(ClassLayout layout) {
+        if (this.continuation != null) {
+            return this.tail();
+        }
+        if (this.continuationFactory == null) {
+            throw new IllegalStateException("sheet " + this.sheetName() + " exceeds the maximum of " + this.maxRows + " rows");
+        }
+        SheetBuilder next = this.continuationFactory.get();
+        next.incremental(this.incremental);
+        // 写入表头后再发布续表，其他线程经tail()取得续表时表头已在数据之前
+        next.startLayout(layout);
+        log.info("sheet {} reached the maximum of {} rows, continued in sheet {}", this.sheetName(), this.maxRows, next.sheetName());
+        this.continuation = next;
+        return next;
+    }
 
-        // 设置列宽、行高
-        if (this.measure == null) {
-            ExcelMeasure excelMeasure = clazz.getAnnotation(ExcelMeasure.class);
-            if (excelMeasure != null) {
-                this.measure = excelMeasure;
-            }
+    /**
+     * @return 最后一个续表，没有续表时为当前对象
+     */
+    SheetBuilder tail() {
+        SheetBuilder tail = this;
+        while (tail.continuation != null) {
+            tail = tail.continuation;
         }
+        return tail;
+    }
 
-        return this;
+    /**
+     * 设置续表工厂
+     *
+     * @param continuationFactory 续表工厂
+     */
+    void continuationFactory(Supplier<SheetBuilder> continuationFactory) {
+        this.continuationFactory = continuationFactory;
+    }
+
+    /**
+     * @return 工作表格式的最大行数
+     */
+    int maxRows() {
+        return this.maxRows;
     }
 
     /**
@@ -257,46 +492,156 @@ public class SheetBuilder {
      * @return 当前builder对象
      */
     public <T> SheetBuilder append(@NonNull T model) {
-        Class<?> clazz = model.getClass();
-        Field[] fields = clazz.getDeclaredFields();
-
-        // 对字段进行过滤排序，转换为参数列表
-        List<CommonParam> params = Arrays.stream(fields)
-                .map(f -> {
-                    ExcelModule excelModule = f.getAnnotation(ExcelModule.class);
-                    if (null == excelModule) {
-                        return null;
-                    }
-                    CommonParam param = CommonParam.fromXlsModule(excelModule);
-                    param.setFieldName(f.getName());
-                    return param;
-                })
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(CommonParam::getIndex))
-                .toList();
-
-        for (CommonParam param : params) {
+        SheetBuilder tail = this.tail();
+        if (tail != this) {
+            tail.append(model);
+            return this;
+        }
+        ClassLayout layout = ClassLayout.of(model.getClass());
+        // 设置列宽、行高，增量输出时行在创建时即需要行高
+        this.measure(layout);
+
+        for (CommonParam param : layout.getModules()) {
             this.colNum.set(0);
-            Object val = ExcelUtil.getFieldVal(model, param.getFieldName());
+            Object val = param.value(model);
             if (val instanceof List<?>) {
                 // 按列表数据处理
                 this.append((List<?>) val);
             } else if (val instanceof String) {
-                this.append((String) val, param);
-                this.updateRowNum(this.colNum.get(), param.getColCount(), param.getRowCount());
+                synchronized (this) {
+                    long start = System.nanoTime();
+                    this.append(val, param);
+                    this.updateRowNum(this.colNum.get(), param.getColCount(), param.getRowCount());
+                    this.emitCompletedRows();
+                    this.metrics.appended(1, System.nanoTime() - start);
+                }
             } else {
                 log.warn("仅支持List和String类型的字段，无法处理{}字段", param.getFieldName());
             }
         }
 
-        // 设置列宽、行高
-        if (this.measure == null) {
-            ExcelMeasure excelMeasure = clazz.getAnnotation(ExcelMeasure.class);
-            if (excelMeasure != null) {
-                this.measure = excelMeasure;
+        return this;
+    }
+
+    /**
+     * 声明类布局中各数据列的字符串存储策略
+     * 调用方需持有当前对象的锁
+     *
+     * @param layout 类布局
+     */
+    private void declareStrings(ClassLayout layout) {
+        if (this.stringPolicy == null) {
+            return;
+        }
+        int col = 0;
+        for (CommonParam param : layout.getCells()) {
+            this.stringPolicy.declare(col, param.getStringStrategy());
+            col += param.getColCount();
+        }
+    }
+
+    /**
+     * 记录类布局中的列宽、行高，以首个声明的为准
+     *
+     * @param layout 类布局
+     */
+    private void measure(ClassLayout layout) {
+        if (this.measure == null && layout.getMeasure() != null) {
+            this.measure = layout.getMeasure();
+            if (this.xmlWriter != null) {
+                // 流式输出的工作表在首次写入数据体时即输出列宽
+                this.xmlWriter.widths(this.measure.width());
+            }
+        }
+    }
+
+    /**
+     * 创建并发追加器，先写入数据类型的表头
+     * 多个线程可通过追加器同时写入数据块，数据块按序号排列，见{@link ConcurrentAppender}
+     *
+     * @param clazz 数据类型，用于解析表头及单元格
+     * @param <T>   泛型类
+     * @return 并发追加器
+     */
+    public <T> ConcurrentAppender<T> concurrentAppender(@NonNull Class<T> clazz) {
+        SheetBuilder tail = this.tail();
+        if (tail != this) {
+            return tail.concurrentAppender(clazz);
+        }
+        ClassLayout layout = ClassLayout.of(clazz);
+        synchronized (this) {
+            this.startLayout(layout);
+            return new ConcurrentAppender<>(this, layout, this.maxRowNum());
+        }
+    }
+
+    /**
+     * 在当前线程内独立生成数据块，不获取工作表的锁
+     *
+     * @param iterator 数据迭代器
+     * @param layout   数据类型布局
+     * @return 行号从0开始的数据块
+     */
+    SheetBuilder render(Iterator<?> iterator, ClassLayout layout) {
+        return new SheetBuilder(this.styleRegistry).appendRecords(iterator, layout);
+    }
+
+    /**
+     * 将数据块放入已预留的行区间，预留区间之后所有列的待插入行对齐到区间末尾
+     *
+     * @param chunk   数据块
+     * @param baseRow 预留区间起始行
+     * @param endRow  预留区间结束行（不含）
+     */
+    void place(SheetBuilder chunk, int baseRow, int endRow) {
+        long waitStart = System.nanoTime();
+        synchronized (this) {
+            long lockedAt = System.nanoTime();
+            this.metrics.lockWaited(lockedAt - waitStart);
+            int cellCount = chunk.cells.size();
+            List<CellRangeAddress> regions = new ArrayList<>(chunk.regions.size());
+            for (CellRangeAddress region : chunk.regions) {
+                CellRangeAddress shifted = new CellRangeAddress(region.getFirstRow() + baseRow, region.getLastRow() + baseRow,
+                        region.getFirstColumn(), region.getLastColumn());
+                this.checkRegion(shifted);
+                regions.add(shifted);
             }
+            this.isDataUpdated.set(true);
+            this.cells.addAll(chunk.cells, baseRow);
+            regions.forEach(this::addRegion);
+            this.skyline.raise(chunk.skyline.width(), endRow);
+            this.emitCompletedRows();
+            this.metrics.appended(cellCount, System.nanoTime() - lockedAt);
         }
+    }
 
+    /**
+     * @return 所有列中最大的待插入行
+     */
+    synchronized int maxRowNum() {
+        return this.skyline.max();
+    }
+
+    /**
+     * 设置工作表指标
+     *
+     * @param metrics 工作表指标
+     */
+    void metrics(ExportMetrics.SheetMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 设置是否增量输出，流式、直写类型的工作表默认开启
+     * 增量输出时已完成的行在append过程中即写入工作表，流式工作表随之写入磁盘。
+     * 已完成的行以已使用的列计算，开始输出后不能再写入比已有列更宽的数据，否则抛出IllegalStateException，
+     * 同一工作表写入不同宽度的数据时应先写入最宽的数据，或关闭增量输出
+     *
+     * @param incremental 是否增量输出
+     * @return 当前builder对象
+     */
+    public SheetBuilder incremental(boolean incremental) {
+        this.incremental = incremental;
         return this;
     }
 
@@ -304,38 +649,229 @@ public class SheetBuilder {
      * 构造工作表
      */
     public synchronized void build() {
+        this.commit(this.prepare());
+    }
+
+    /**
+     * 构造准备阶段：取出缓存单元格并按行分组排序，不修改workbook
+     *
+     * @return 待写入的行，无数据修改时返回null
+     */
+    private synchronized RowBatch prepare() {
         if (!this.isDataUpdated.get()) {
-            return;
+            return null;
         }
-        Map<Integer, List<CellModel>> map = this.cells.stream()
-                .collect(Collectors.groupingBy(CellModel::getRowNum));
-        for (Map.Entry<Integer, List<CellModel>> entry : map.entrySet()) {
-            Row row = this.sheet.createRow(entry.getKey());
-            for (CellModel cellModel : entry.getValue()) {
-                Cell cell = row.createCell(cellModel.getColNum(), CellType.STRING);
-                cell.setCellValue(cellModel.getValue());
-                cell.setCellStyle(cellModel.getStyle());
-            }
+        long start = System.nanoTime();
+        RowBatch batch = this.collectRows(Integer.MAX_VALUE);
+        // 取出成功后才清除修改标记，失败时缓存单元格及标记保留
+        this.isDataUpdated.set(false);
+        this.prepareNanos = System.nanoTime() - start;
+        return batch;
+    }
+
+    /**
+     * 构造提交阶段：写入行、行高列宽及合并区域
+     *
+     * @param batch 准备阶段生成的待写入行
+     */
+    private synchronized void commit(RowBatch batch) {
+        if (batch == null) {
+            return;
         }
-        this.cells.clear();
+        long start = System.nanoTime();
+        this.writeRows(batch);
         this.setHightAndWidth(this.measure);
-        this.regions.forEach(this.sheet::addMergedRegion);
+        if (this.xmlWriter != null) {
+            this.regions.forEach(this.xmlWriter::addMergedRegion);
+        } else {
+            // 重叠已在追加时检查
+            this.regions.forEach(this.sheet::addMergedRegionUnsafe);
+        }
+        this.metrics.mergedRegions(this.regions.size());
         this.regions.clear();
-        this.isDataUpdated.set(false);
+        this.metrics.built(this.prepareNanos + System.nanoTime() - start);
+    }
+
+    /**
+     * 增量输出模式下，将所有列均已越过的行写入工作表
+     */
+    private synchronized void emitCompletedRows() {
+        if (!this.incremental) {
+            return;
+        }
+        int watermark = this.skyline.min();
+        if (watermark > this.emittedRowNum) {
+            this.writeRows(this.collectRows(watermark));
+        }
+    }
+
+    /**
+     * 取出行号小于watermark的缓存单元格，按行号升序分组
+     *
+     * @param watermark 输出行号上限（不含）
+     * @return 待写入的行
+     */
+    private synchronized RowBatch collectRows(int watermark) {
+        CellBuffer drained = this.cells.drain(watermark);
+        // 设置了行高的行需按序创建，其中可能没有单元格
+        int measuredRowNum = this.measure == null ? 0 : Math.min(this.measure.height().length, watermark);
+        return new RowBatch(drained, this.emittedRowNum, measuredRowNum, watermark);
     }
 
     /**
-     * 更新 列数-待插入数据行数map
+     * 将行写入工作表
+     * 按行号升序创建行，满足流式工作表只能顺序写入的要求
+     *
+     * @param batch 待写入的行
+     */
+    private synchronized void writeRows(RowBatch batch) {
+        CellBuffer cells = batch.getCells();
+        int size = cells.size();
+        int measuredRowNum = batch.getMeasuredRowNum();
+        int emptyRowNum = batch.getFromRowNum();
+        int rowCount = 0;
+        int i = 0;
+        while (i < size || emptyRowNum < measuredRowNum) {
+            int rowNum = i < size ? cells.row(i) : Integer.MAX_VALUE;
+            if (emptyRowNum < measuredRowNum && emptyRowNum < rowNum) {
+                // 设置了行高的空行
+                if (!this.isFlushed(emptyRowNum)) {
+                    rowCount++;
+                    if (this.xmlWriter != null) {
+                        this.xmlWriter.startRow(emptyRowNum, this.rowHeight(emptyRowNum));
+                        this.xmlWriter.endRow();
+                    } else {
+                        this.row(emptyRowNum);
+                    }
+                }
+                emptyRowNum++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < size && cells.row(end) == rowNum) {
+                end++;
+            }
+            if (emptyRowNum == rowNum) {
+                emptyRowNum++;
+            }
+            if (this.isFlushed(rowNum)) {
+                log.warn("row {} of sheet {} has been flushed, {} cells dropped",
+                        rowNum, this.sheetName(), end - i);
+                i = end;
+                continue;
+            }
+            rowCount++;
+            if (this.xmlWriter != null) {
+                this.xmlWriter.startRow(rowNum, this.rowHeight(rowNum));
+                for (; i < end; i++) {
+                    this.xmlWriter.cell(cells.col(i), cells.style(i), cells.value(i));
+                }
+                this.xmlWriter.endRow();
+                continue;
+            }
+            Row row = this.row(rowNum);
+            for (; i < end; i++) {
+                int col = cells.col(i);
+                Object value = cells.value(i);
+                Cell cell = row.createCell(col);
+                if (value instanceof String && this.stringPolicy != null && this.stringPolicy.inline(col, (String) value)) {
+                    setInlineString((XSSFCell) cell, (String) value);
+                } else {
+                    setCellValue(cell, value);
+                }
+                cell.setCellStyle(this.styleRegistry.styleAt(cells.style(i)));
+            }
+        }
+        // 构建时上限为Integer.MAX_VALUE，实际输出的行不超过所有列中最大的待插入行
+        this.emittedRowNum = Math.max(this.emittedRowNum, Math.min(batch.getWatermark(), this.skyline.max()));
+        this.metrics.rowsEmitted(rowCount);
+    }
+
+    /**
+     * 按值的类型写入单元格，数值、日期、布尔值不进入共享字符串表
+     *
+     * @param cell  单元格
+     * @param value 单元格值
+     */
+    private static void setCellValue(Cell cell, Object value) {
+        if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else if (value instanceof Number) {
+            // BigDecimal等同样按double写入，excel数值精度为15位有效数字
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+        } else if (value instanceof Calendar) {
+            cell.setCellValue((Calendar) value);
+        } else if (value != null) {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * 以内联字符串写入单元格，不进入共享字符串表
+     *
+     * @param cell  新建的单元格
+     * @param value 字符串
+     */
+    private static void setInlineString(XSSFCell cell, String value) {
+        CTCell ctCell = cell.getCTCell();
+        ctCell.setT(STCellType.INLINE_STR);
+        ctCell.setIs(new XSSFRichTextString(value).getCTRst());
+    }
+
+    /**
+     * 获取或创建行，新建行时按列宽、行高数据设置行高
+     *
+     * @param rowNum 行号
+     * @return 行对象
+     */
+    private Row row(int rowNum) {
+        Row row = this.sheet.getRow(rowNum);
+        if (row == null) {
+            row = this.sheet.createRow(rowNum);
+            float height = this.rowHeight(rowNum);
+            if (height >= 0) {
+                row.setHeightInPoints(height);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * @param rowNum 行号
+     * @return 列宽、行高数据中的行高，未设置时为-1
+     */
+    private float rowHeight(int rowNum) {
+        if (this.measure != null && rowNum < this.measure.height().length) {
+            return this.measure.height()[rowNum];
+        }
+        return -1;
+    }
+
+    /**
+     * @return 工作表名称
+     */
+    private String sheetName() {
+        return this.xmlWriter != null ? this.xmlWriter.sheetName() : this.sheet.getSheetName();
+    }
+
+    /**
+     * 更新各列待插入数据行数
+     * 调用方需持有当前对象的锁
      *
      * @param currentColNum 当前全局列数
      * @param colCount      影响列数
      * @param rowCount      行数变化值
      */
     private void updateRowNum(int currentColNum, int colCount, int rowCount) {
-        for (int i = currentColNum; i < currentColNum + colCount; i++) {
-            this.colRowMap.putIfAbsent(i, 0);
-            this.colRowMap.computeIfPresent(i, (k, v) -> v + rowCount);
-        }
+        this.skyline.add(currentColNum, colCount, rowCount);
     }
 
     /**
@@ -345,12 +881,7 @@ public class SheetBuilder {
      * @return 待插入行数
      */
     private int getRowNum(int colNum) {
-        if (this.colRowMap.containsKey(colNum)) {
-            return this.colRowMap.get(colNum);
-        } else {
-            this.colRowMap.put(colNum, 0);
-            return 0;
-        }
+        return this.skyline.get(colNum);
     }
 
     /**
@@ -364,13 +895,18 @@ public class SheetBuilder {
         }
         float[] heights = excelMeasure.height();
         int[] widths = excelMeasure.width();
+        if (this.xmlWriter != null) {
+            // 直写类型的行高在创建行时写入
+            this.xmlWriter.widths(widths);
+            return;
+        }
         for (int i = 0, heightsLength = heights.length; i < heightsLength; i++) {
             float height = heights[i];
-            Row row = this.sheet.getRow(i);
-            if (row == null) {
-                row = this.sheet.createRow(i);
+            if (this.isFlushed(i)) {
+                // 已写入磁盘的行在创建时已设置行高
+                continue;
             }
-            row.setHeightInPoints(height);
+            this.row(i).setHeightInPoints(height);
         }
         for (int i = 0, widthsLength = widths.length; i < widthsLength; i++) {
             int width = widths[i];
@@ -379,68 +915,200 @@ public class SheetBuilder {
     }
 
 
+    /**
+     * 判断行是否已被流式工作表写入磁盘或已被直写
+     *
+     * @param rowNum 行号
+     * @return 是否已写入磁盘
+     */
+    private boolean isFlushed(int rowNum) {
+        if (this.xmlWriter != null) {
+            return rowNum <= this.xmlWriter.lastRowNum();
+        }
+        return this.sheet instanceof SXSSFSheet && rowNum <= ((SXSSFSheet) this.sheet).getLastFlushedRowNum();
+    }
+
+    /**
+     * 待写入的行
+     */
+    @Value
+    static class RowBatch {
+        /**
+         * 按行号升序排列的单元格
+         */
+        CellBuffer cells;
+        /**
+         * 本批次起始行号
+         */
+        int fromRowNum;
+        /**
+         * 设置了行高的行号上限（不含），本批次内该范围的行即使没有单元格也需创建
+         */
+        int measuredRowNum;
+        /**
+         * 行号上限（不含）
+         */
+        int watermark;
+    }
+
     /**
      * 公共参数
+     * 随类布局缓存并在JVM内共享，创建后不可修改，样式属性在构造时生成
      */
-    @Data
-    @Builder
-    static class CommonParam {
+    @Getter
+    static final class CommonParam {
         /**
          * 字段名称
          */
-        private String fieldName;
+        private final String fieldName;
+        /**
+         * 字段取值器
+         */
+        private final FieldAccessor accessor;
+        /**
+         * 表头名称
+         */
+        private final String name;
         /**
          * 序号
          */
-        private int index;
+        private final int index;
         /**
          * 单元格高度
          */
-        private double height;
+        private final double height;
         /**
          * 单元格宽度
          */
-        private double wight;
+        private final double wight;
         /**
          * 自动换行
          */
-        private boolean wrapText;
+        private final boolean wrapText;
         /**
          * 水平布局
          */
-        private HorizontalAlignment horizontalAlignment;
+        private final HorizontalAlignment horizontalAlignment;
         /**
          * 垂直布局
          */
-        private VerticalAlignment verticalAlignment;
+        private final VerticalAlignment verticalAlignment;
         /**
          * 占行数
          */
-        private int rowCount;
+        private final int rowCount;
         /**
          * 占列数
          */
-        private int colCount;
+        private final int colCount;
         /**
          * 字体
          */
-        private String font;
+        private final String font;
         /**
          * 字号
          */
-        private short fontSize;
+        private final short fontSize;
         /**
          * 字体颜色
          */
-        private short fontColor;
+        private final short fontColor;
         /**
          * 是否加粗
          */
-        private boolean fontBold;
+        private final boolean fontBold;
         /**
          * 是否斜体
          */
-        private boolean fontItalic;
+        private final boolean fontItalic;
+        /**
+         * 数据格式
+         */
+        private final String format;
+        /**
+         * 字符串存储策略
+         */
+        private final StringStrategy stringStrategy;
+        /**
+         * 样式属性
+         */
+        @Getter(AccessLevel.NONE)
+        private final StyleRegistry.StyleKey styleKey;
+        /**
+         * 未指定格式时日期值的样式属性
+         */
+        @Getter(AccessLevel.NONE)
+        private final StyleRegistry.StyleKey dateStyleKey;
+        /**
+         * 未指定格式时日期时间值的样式属性
+         */
+        @Getter(AccessLevel.NONE)
+        private final StyleRegistry.StyleKey dateTimeStyleKey;
+
+        @Builder(toBuilder = true)
+        private CommonParam(String fieldName, FieldAccessor accessor, String name, int index, double height, double wight,
+                            boolean wrapText, HorizontalAlignment horizontalAlignment, VerticalAlignment verticalAlignment,
+                            int rowCount, int colCount, String font, short fontSize, short fontColor, boolean fontBold,
+                            boolean fontItalic, String format, StringStrategy stringStrategy) {
+            this.fieldName = fieldName;
+            this.accessor = accessor;
+            this.name = name;
+            this.index = index;
+            this.height = height;
+            this.wight = wight;
+            this.wrapText = wrapText;
+            this.horizontalAlignment = horizontalAlignment;
+            this.verticalAlignment = verticalAlignment;
+            this.rowCount = rowCount;
+            this.colCount = colCount;
+            this.font = font;
+            this.fontSize = fontSize;
+            this.fontColor = fontColor;
+            this.fontBold = fontBold;
+            this.fontItalic = fontItalic;
+            this.format = format;
+            this.stringStrategy = stringStrategy;
+            this.styleKey = StyleRegistry.StyleKey.of(this, format == null ? "" : format);
+            this.dateStyleKey = StyleRegistry.StyleKey.of(this, DEFAULT_DATE_FORMAT);
+            this.dateTimeStyleKey = StyleRegistry.StyleKey.of(this, DEFAULT_DATE_TIME_FORMAT);
+        }
+
+        /**
+         * 读取对象中当前参数对应的字段值
+         *
+         * @param object 对象实例
+         * @return 字段值
+         */
+        Object value(Object object) {
+            if (this.accessor == null) {
+                return ExcelUtil.getFieldVal(object, this.fieldName);
+            }
+            return this.accessor.get(object);
+        }
+
+        /**
+         * @return 样式属性
+         */
+        StyleRegistry.StyleKey styleKey() {
+            return this.styleKey;
+        }
+
+        /**
+         * @param value 单元格值
+         * @return 单元格值对应的样式属性，未指定格式的日期使用默认日期格式
+         */
+        StyleRegistry.StyleKey styleKey(Object value) {
+            if (this.format != null && !this.format.isEmpty()) {
+                return this.styleKey;
+            }
+            if (value instanceof LocalDate) {
+                return this.dateStyleKey;
+            }
+            if (value instanceof Date || value instanceof LocalDateTime || value instanceof Calendar) {
+                return this.dateTimeStyleKey;
+            }
+            return this.styleKey;
+        }
 
         /**
          * XlsModule转换为通用参数对象
@@ -483,6 +1151,8 @@ public class SheetBuilder {
                     .fontColor(excelCell.fontColor())
                     .fontBold(excelCell.fontBold())
                     .fontItalic(excelCell.fontItalic())
+                    .format(excelCell.format())
+                    .stringStrategy(excelCell.stringStrategy())
                     .build();
         }
 
@@ -494,6 +1164,7 @@ public class SheetBuilder {
          */
         public static CommonParam fromXlsField(@NonNull ExcelField excelField) {
             return CommonParam.builder().index(excelField.index())
+                    .name(excelField.name())
 //                    .height(excelField.height())
 //                    .wight(excelField.wight())
                     .wrapText(excelField.wrapText())
@@ -0,0 +1,452 @@
+package com.syl.exsilent.builder;
+
+import lombok.SneakyThrows;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 工作表xml直写器
+ * 不经过POI的Row/Cell对象模型，单元格直接以SpreadsheetML文本写入可复用的字符缓冲区，
+ * 缓冲区满后写入临时文件；单元格引用的列名预先计算，行号直接写入缓冲区，每个单元格不产生对象。
+ * 列宽位于sheetData之前、合并区域位于之后，因此数据体先写入临时文件，输出时再拼接完整的工作表xml；
+ * 流式输出时数据体不经过临时文件，直接写入已打开的xlsx包条目，此时列宽需在首次写入前确定
+ * 字符串均以内联字符串写入，非线程安全，由SheetBuilder在持有锁时访问
+ *
+ * @since 2023.6.23
+ */
+final class SheetXmlWriter {
+    /**
+     * 字符缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * 列名缓存，列号即数组下标
+     */
+    private static volatile char[][] columnNames = new char[0][];
+    /**
+     * 工作表名称
+     */
+    private final String sheetName;
+    /**
+     * 临时文件目录，为null时使用POI的临时文件策略
+     */
+    private final Path tempDirectory;
+    /**
+     * 字符缓冲区
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * 缓冲区已使用长度
+     */
+    private int position = 0;
+    /**
+     * 数据体临时文件，首次写入时创建
+     */
+    private File bodyFile;
+    /**
+     * 数据体输出
+     */
+    private Writer bodyWriter;
+    /**
+     * 流式输出的xlsx包条目，为null时数据体写入临时文件
+     */
+    private Writer streamWriter;
+    /**
+     * 流式输出时是否已写入工作表xml头部
+     */
+    private boolean headWritten = false;
+    /**
+     * 当前行号，用于生成单元格引用
+     */
+    private char[] currentRow = new char[0];
+    /**
+     * 已写入的最大行号
+     */
+    private int lastRowNum = -1;
+    /**
+     * 列宽
+     */
+    private int[] widths = new int[0];
+    /**
+     * 合并区域
+     */
+    private final List<CellRangeAddress> regions = new ArrayList<>();
+
+    SheetXmlWriter(String sheetName, Path tempDirectory) {
+        this.sheetName = sheetName;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * 开始新行，行号需大于已写入的行
+     *
+     * @param rowNum 行号
+     * @param height 行高，小于0时使用默认行高
+     */
+    void startRow(int rowNum, float height) {
+        this.lastRowNum = rowNum;
+        this.currentRow = Integer.toString(rowNum + 1).toCharArray();
+        this.append("<row r=\"").append(this.currentRow).append('"');
+        if (height >= 0) {
+            this.append(" ht=\"").append(Float.toString(height)).append("\" customHeight=\"1\"");
+        }
+        this.append('>');
+    }
+
+    /**
+     * 结束当前行
+     */
+    void endRow() {
+        this.append("</row>");
+    }
+
+    /**
+     * 在当前行写入单元格
+     *
+     * @param col   列号
+     * @param style 样式下标
+     * @param value 单元格值，null写入空白单元格
+     */
+    void cell(int col, short style, Object value) {
+        this.append("<c r=\"").append(columnName(col)).append(this.currentRow).append('"');
+        if (style != 0) {
+            this.append(" s=\"").append(Short.toUnsignedInt(style)).append('"');
+        }
+        if (value == null) {
+            this.append("/>");
+        } else if (value instanceof Number) {
+            this.number((Number) value);
+        } else if (value instanceof Boolean) {
+            this.append(" t=\"b\"><v>").append((Boolean) value ? '1' : '0').append("</v></c>");
+        } else if (value instanceof Date) {
+            this.serial(DateUtil.getExcelDate((Date) value));
+        } else if (value instanceof LocalDateTime) {
+            this.serial(DateUtil.getExcelDate((LocalDateTime) value));
+        } else if (value instanceof LocalDate) {
+            this.serial(DateUtil.getExcelDate((LocalDate) value));
+        } else if (value instanceof Calendar) {
+            this.serial(DateUtil.getExcelDate((Calendar) value, false));
+        } else {
+            this.string(value.toString());
+        }
+    }
+
+    private void number(Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            this.append("><v>").append(value.longValue()).append("</v></c>");
+        } else {
+            this.serial(value.doubleValue());
+        }
+    }
+
+    private void serial(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // 与POI一致，非有限数值写为错误值
+            this.append(" t=\"e\"><v>#NUM!</v></c>");
+            return;
+        }
+        this.append("><v>");
+        long longValue = (long) value;
+        if (longValue == value) {
+            this.append(longValue);
+        } else {
+            this.append(Double.toString(value));
+        }
+        this.append("</v></c>");
+    }
+
+    private void string(String value) {
+        this.append(" t=\"inlineStr\"><is><t");
+        int length = value.length();
+        if (length > 0 && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(length - 1)))) {
+            this.append(" xml:space=\"preserve\"");
+        }
+        this.append('>').escape(value).append("</t></is></c>");
+    }
+
+    /**
+     * 转义xml文本，逐字符判断，不使用正则
+     * xml 1.0不允许的控制字符直接丢弃
+     *
+     * @param value 文本
+     * @return 当前对象
+     */
+    private SheetXmlWriter escape(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    this.append("&lt;");
+                    break;
+                case '>':
+                    this.append("&gt;");
+                    break;
+                case '&':
+                    this.append("&amp;");
+                    break;
+                case '"':
+                    this.append("&quot;");
+                    break;
+                case '\t':
+                case '\n':
+                case '\r':
+                    this.append(c);
+                    break;
+                default:
+                    if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+                        this.append(c);
+                    }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return 已写入的最大行号，未写入时为-1
+     */
+    int lastRowNum() {
+        return this.lastRowNum;
+    }
+
+    /**
+     * @return 工作表名称
+     */
+    String sheetName() {
+        return this.sheetName;
+    }
+
+    /**
+     * 设置列宽
+     *
+     * @param widths 各列宽度，单位为字符
+     */
+    void widths(int[] widths) {
+        this.widths = widths;
+    }
+
+    /**
+     * 新增合并区域
+     *
+     * @param region 合并区域
+     */
+    void addMergedRegion(CellRangeAddress region) {
+        this.regions.add(region);
+    }
+
+    /**
+     * 流式输出：之后的数据体直接写入输出流，需在写入任何数据体之前调用
+     *
+     * @param out 已打开的xlsx包条目，不关闭
+     */
+    void stream(OutputStream out) {
+        if (this.bodyFile != null) {
+            throw new IllegalStateException("sheet " + this.sheetName + " has been written to a temp file");
+        }
+        this.streamWriter = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 输出完整的工作表xml，流式输出时只输出剩余部分
+     *
+     * @param out 输出流，不关闭；流式输出时需为stream方法传入的输出流
+     */
+    @SneakyThrows
+    void writeTo(OutputStream out) {
+        this.flush();
+        if (this.streamWriter != null) {
+            if (!this.headWritten) {
+                this.streamWriter.write(this.head());
+                this.headWritten = true;
+            }
+            this.streamWriter.write(this.tail());
+            this.streamWriter.flush();
+            return;
+        }
+        if (this.bodyWriter != null) {
+            this.bodyWriter.flush();
+        }
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(this.head());
+        writer.flush();
+        if (this.bodyFile != null) {
+            Files.copy(this.bodyFile.toPath(), out);
+        }
+        writer.write(this.tail());
+        writer.flush();
+    }
+
+    /**
+     * @return 工作表xml中sheetData开始标签及之前的部分
+     */
+    private String head() {
+        StringBuilder head = new StringBuilder(256);
+        head.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"")
+                .append(" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">")
+                .append("<sheetFormatPr defaultRowHeight=\"15.0\"/>");
+        if (this.widths.length > 0) {
+            head.append("<cols>");
+            for (int i = 0; i < this.widths.length; i++) {
+                head.append("<col min=\"").append(i + 1).append("\" max=\"").append(i + 1)
+                        .append("\" width=\"").append(this.widths[i]).append("\" customWidth=\"1\"/>");
+            }
+            head.append("</cols>");
+        }
+        head.append("<sheetData>");
+        return head.toString();
+    }
+
+    /**
+     * @return 工作表xml中sheetData结束标签及之后的部分
+     */
+    private String tail() {
+        StringBuilder tail = new StringBuilder(64 + this.regions.size() * 16);
+        tail.append("</sheetData>");
+        if (!this.regions.isEmpty()) {
+            tail.append("<mergeCells count=\"").append(this.regions.size()).append("\">");
+            for (CellRangeAddress region : this.regions) {
+                tail.append("<mergeCell ref=\"").append(region.formatAsString()).append("\"/>");
+            }
+            tail.append("</mergeCells>");
+        }
+        tail.append("</worksheet>");
+        return tail.toString();
+    }
+
+    /**
+     * 关闭并删除临时文件
+     */
+    @SneakyThrows
+    void dispose() {
+        this.streamWriter = null;
+        if (this.bodyWriter != null) {
+            this.bodyWriter.close();
+            this.bodyWriter = null;
+        }
+        if (this.bodyFile != null) {
+            Files.deleteIfExists(this.bodyFile.toPath());
+            this.bodyFile = null;
+        }
+    }
+
+    private SheetXmlWriter append(String value) {
+        int length = value.length();
+        if (this.position + length > BUFFER_SIZE) {
+            this.flush();
+            if (length > BUFFER_SIZE) {
+                this.write(value.toCharArray(), length);
+                return this;
+            }
+        }
+        value.getChars(0, length, this.buffer, this.position);
+        this.position += length;
+        return this;
+    }
+
+    private SheetXmlWriter append(char[] value) {
+        if (this.position + value.length > BUFFER_SIZE) {
+            this.flush();
+        }
+        System.arraycopy(value, 0, this.buffer, this.position, value.length);
+        this.position += value.length;
+        return this;
+    }
+
+    private SheetXmlWriter append(char value) {
+        if (this.position == BUFFER_SIZE) {
+            this.flush();
+        }
+        this.buffer[this.position++] = value;
+        return this;
+    }
+
+    private SheetXmlWriter append(long value) {
+        if (value < 0) {
+            this.append('-');
+            if (value == Long.MIN_VALUE) {
+                return this.append("9223372036854775808");
+            }
+            value = -value;
+        }
+        // 整数最多19位，直接从后向前写入缓冲区
+        if (this.position + 19 > BUFFER_SIZE) {
+            this.flush();
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int end = this.position + digits;
+        for (int i = end - 1; i >= this.position; i--) {
+            this.buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        this.position = end;
+        return this;
+    }
+
+    @SneakyThrows
+    private void flush() {
+        if (this.position == 0) {
+            return;
+        }
+        this.write(this.buffer, this.position);
+        this.position = 0;
+    }
+
+    @SneakyThrows
+    private void write(char[] chars, int length) {
+        if (this.streamWriter != null) {
+            if (!this.headWritten) {
+                this.streamWriter.write(this.head());
+                this.headWritten = true;
+            }
+            this.streamWriter.write(chars, 0, length);
+            return;
+        }
+        if (this.bodyWriter == null) {
+            this.bodyFile = TempFiles.create(this.tempDirectory, "exsilent-sheet", ".xml");
+            this.bodyWriter = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(this.bodyFile)),
+                    StandardCharsets.UTF_8);
+        }
+        this.bodyWriter.write(chars, 0, length);
+    }
+
+    /**
+     * 获取列名，如0列为A、26列为AA
+     *
+     * @param col 列号
+     * @return 列名
+     */
+    private static char[] columnName(int col) {
+        char[][] names = columnNames;
+        if (col < names.length) {
+            return names[col];
+        }
+        synchronized (SheetXmlWriter.class) {
+            names = columnNames;
+            if (col >= names.length) {
+                char[][] grown = new char[Math.max(col + 1, names.length + 64)][];
+                System.arraycopy(names, 0, grown, 0, names.length);
+                for (int i = names.length; i < grown.length; i++) {
+                    grown[i] = CellReference.convertNumToColString(i).toCharArray();
+                }
+                columnNames = grown;
+                names = grown;
+            }
+            return names[col];
+        }
+    }
+}
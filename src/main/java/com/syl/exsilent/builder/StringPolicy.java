@@ -0,0 +1,115 @@
+package com.syl.exsilent.builder;
+
+import com.syl.exsilent.annontion.StringStrategy;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 工作表字符串存储策略
+ * 按列决定字符串单元格写入共享字符串表还是内联；自动策略下每列采样前{@value #SAMPLE_SIZE}个字符串，
+ * 不同值超过一半的列改为内联，采样期间写入共享字符串表，因此共享字符串表中每列至多增加采样数量的字符串
+ * 非线程安全，由SheetBuilder在持有锁时访问
+ *
+ * @since 2023.6.23
+ */
+final class StringPolicy {
+    /**
+     * 自动策略每列的采样数量
+     */
+    static final int SAMPLE_SIZE = 1024;
+    /**
+     * workbook策略
+     */
+    private final StringStrategy strategy;
+    /**
+     * 各列状态，列号即数组下标
+     */
+    private Column[] columns = new Column[16];
+
+    /**
+     * @param strategy workbook策略，DEFAULT视为SST
+     */
+    StringPolicy(StringStrategy strategy) {
+        this.strategy = strategy == StringStrategy.DEFAULT ? StringStrategy.SST : strategy;
+    }
+
+    /**
+     * 声明列策略，DEFAULT不覆盖已声明的策略
+     *
+     * @param col      列号
+     * @param strategy 列策略
+     */
+    void declare(int col, StringStrategy strategy) {
+        if (strategy != null && strategy != StringStrategy.DEFAULT) {
+            this.column(col).strategy = strategy;
+        }
+    }
+
+    /**
+     * 判断字符串是否内联
+     *
+     * @param col   列号
+     * @param value 字符串
+     * @return 是否内联
+     */
+    boolean inline(int col, String value) {
+        Column column = this.column(col);
+        StringStrategy strategy = column.strategy == null ? this.strategy : column.strategy;
+        switch (strategy) {
+            case INLINE:
+                return true;
+            case AUTO:
+                return column.sample(value);
+            default:
+                return false;
+        }
+    }
+
+    private Column column(int col) {
+        if (col >= this.columns.length) {
+            this.columns = Arrays.copyOf(this.columns, Math.max(col + 1, this.columns.length << 1));
+        }
+        Column column = this.columns[col];
+        if (column == null) {
+            column = new Column();
+            this.columns[col] = column;
+        }
+        return column;
+    }
+
+    /**
+     * 列状态
+     */
+    private static final class Column {
+        /**
+         * 列策略，null时沿用workbook策略
+         */
+        StringStrategy strategy;
+        /**
+         * 采样到的不同值，采样结束后释放
+         */
+        Set<String> sample = new HashSet<>();
+        /**
+         * 已采样数量
+         */
+        int sampled = 0;
+        /**
+         * 采样结论：是否内联
+         */
+        boolean inline = false;
+
+        boolean sample(String value) {
+            if (this.sample == null) {
+                return this.inline;
+            }
+            this.sample.add(value);
+            if (++this.sampled >= SAMPLE_SIZE) {
+                this.inline = this.sample.size() * 2 > this.sampled;
+                this.sample = null;
+            }
+            return false;
+        }
+    }
+}
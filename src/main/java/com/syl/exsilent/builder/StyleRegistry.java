@@ -0,0 +1,291 @@
+package com.syl.exsilent.builder;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 样式注册表
+ * workbook级别的样式、字体去重缓存，视觉属性相同的单元格共享同一个CellStyle/Font
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+public class StyleRegistry {
+    /**
+     * workbook实例引用
+     */
+    private final Workbook workbook;
+    /**
+     * 样式缓存
+     * k-样式属性
+     * v-样式
+     */
+    private final ConcurrentHashMap<StyleKey, CellStyle> styleMap = new ConcurrentHashMap<>();
+    /**
+     * 字体缓存
+     * k-字体属性
+     * v-字体
+     */
+    private final ConcurrentHashMap<FontKey, Font> fontMap = new ConcurrentHashMap<>();
+    /**
+     * 数据格式缓存
+     * k-格式
+     * v-格式下标
+     */
+    private final ConcurrentHashMap<String, Short> formatMap = new ConcurrentHashMap<>();
+    /**
+     * 表头模板的样式下标缓存
+     * k-表头模板，按引用比较
+     * v-与模板单元格一一对应的样式下标
+     */
+    private final ConcurrentHashMap<HeaderTemplate, short[]> headerStyles = new ConcurrentHashMap<>();
+    /**
+     * 按workbook样式下标存放的已创建样式，供单元格缓存以short下标引用样式
+     */
+    private volatile CellStyle[] styleTable = new CellStyle[16];
+    /**
+     * 命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+    /**
+     * 未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+    /**
+     * 导出指标
+     */
+    private volatile ExportMetrics metrics = ExportMetrics.NOOP;
+    /**
+     * excel类型，用于导出指标
+     */
+    private volatile ExcelBuilder.ExcelType excelType = null;
+
+    StyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * 设置导出指标
+     *
+     * @param metrics   导出指标
+     * @param excelType excel类型
+     */
+    void metrics(ExportMetrics metrics, ExcelBuilder.ExcelType excelType) {
+        this.metrics = metrics;
+        this.excelType = excelType;
+    }
+
+    /**
+     * 获取参数及单元格值对应的样式，不存在时创建
+     *
+     * @param param 单元格参数
+     * @param value 单元格值，未指定格式的日期使用默认日期格式
+     * @return 共享的样式对象
+     */
+    CellStyle style(@NonNull SheetBuilder.CommonParam param, Object value) {
+        return this.style(param.styleKey(value));
+    }
+
+    /**
+     * 获取样式属性对应的样式，不存在时创建
+     *
+     * @param key 样式属性
+     * @return 共享的样式对象
+     */
+    CellStyle style(@NonNull StyleKey key) {
+        CellStyle style = this.styleMap.get(key);
+        if (style != null) {
+            this.hitCount.increment();
+            return style;
+        }
+        // workbook非线程安全，创建过程需串行
+        synchronized (this) {
+            style = this.styleMap.get(key);
+            if (style != null) {
+                this.hitCount.increment();
+                return style;
+            }
+            this.missCount.increment();
+            style = this.workbook.createCellStyle();
+            style.setAlignment(key.getHorizontalAlignment());
+            style.setVerticalAlignment(key.getVerticalAlignment());
+            style.setWrapText(key.isWrapText());
+            style.setFont(this.font(key.getFont()));
+            if (!key.getDataFormat().isEmpty()) {
+                style.setDataFormat(this.format(key.getDataFormat()));
+            }
+            int index = Short.toUnsignedInt(style.getIndex());
+            CellStyle[] styleTable = this.styleTable;
+            if (index >= styleTable.length) {
+                styleTable = Arrays.copyOf(styleTable, Math.max(index + 1, styleTable.length << 1));
+            }
+            styleTable[index] = style;
+            this.styleTable = styleTable;
+            this.styleMap.put(key, style);
+            this.metrics.styleCreated(this.excelType);
+            return style;
+        }
+    }
+
+    /**
+     * 获取参数及单元格值对应样式的下标，不存在时创建
+     *
+     * @param param 单元格参数
+     * @param value 单元格值
+     * @return 样式下标，xlsx样式数可超过32767，按无符号数解释
+     */
+    short index(@NonNull SheetBuilder.CommonParam param, Object value) {
+        return this.style(param, value).getIndex();
+    }
+
+    /**
+     * 获取表头模板各单元格的样式下标，首次使用模板时逐个解析并缓存
+     *
+     * @param template 表头模板
+     * @return 与模板单元格一一对应的样式下标，不可修改
+     */
+    short[] indices(HeaderTemplate template) {
+        short[] indices = this.headerStyles.get(template);
+        if (indices != null) {
+            this.hitCount.add(indices.length);
+            return indices;
+        }
+        indices = new short[template.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = this.style(template.styleKey(i)).getIndex();
+        }
+        this.headerStyles.putIfAbsent(template, indices);
+        return indices;
+    }
+
+    /**
+     * 根据下标获取通过当前注册表创建的样式
+     *
+     * @param index 样式下标
+     * @return 样式
+     */
+    CellStyle styleAt(short index) {
+        return this.styleTable[Short.toUnsignedInt(index)];
+    }
+
+    /**
+     * 获取字体属性对应的字体，不存在时创建
+     * 仅在持有当前对象锁时调用
+     *
+     * @param key 字体属性
+     * @return 共享的字体对象
+     */
+    private Font font(FontKey key) {
+        Font font = this.fontMap.get(key);
+        if (font == null) {
+            font = this.workbook.createFont();
+            font.setFontName(key.getName());
+            font.setFontHeightInPoints(key.getSize());
+            font.setColor(key.getColor());
+            font.setBold(key.isBold());
+            font.setItalic(key.isItalic());
+            this.fontMap.put(key, font);
+            this.metrics.fontCreated(this.excelType);
+        }
+        return font;
+    }
+
+    /**
+     * 获取数据格式的下标，不存在时创建
+     * 仅在持有当前对象锁时调用
+     *
+     * @param format 数据格式
+     * @return 格式下标
+     */
+    private short format(String format) {
+        Short index = this.formatMap.get(format);
+        if (index == null) {
+            index = this.workbook.createDataFormat().getFormat(format);
+            this.formatMap.put(format, index);
+        }
+        return index;
+    }
+
+    /**
+     * 清零命中、未命中次数，已创建的样式保留
+     * 模板池中的注册表归还及预先创建样式后调用，使每个builder只统计自身的查找
+     */
+    void resetCounts() {
+        this.hitCount.reset();
+        this.missCount.reset();
+    }
+
+    /**
+     * @return 样式命中次数
+     */
+    public long hitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * @return 样式未命中（即新建样式）次数
+     */
+    public long missCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * @return 已创建的样式数
+     */
+    public int styleCount() {
+        return this.styleMap.size();
+    }
+
+    /**
+     * @return 已创建的字体数
+     */
+    public int fontCount() {
+        return this.fontMap.size();
+    }
+
+    @Override
+    public String toString() {
+        return "StyleRegistry{styles=" + this.styleCount() + ", fonts=" + this.fontCount()
+                + ", hit=" + this.hitCount() + ", miss=" + this.missCount() + "}";
+    }
+
+    /**
+     * 样式属性
+     * 作为缓存键频繁参与查找，hashCode仅计算一次
+     */
+    @Value
+    @EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
+    static class StyleKey {
+        HorizontalAlignment horizontalAlignment;
+        VerticalAlignment verticalAlignment;
+        boolean wrapText;
+        FontKey font;
+        String dataFormat;
+
+        static StyleKey of(SheetBuilder.CommonParam param, String dataFormat) {
+            FontKey font = new FontKey(param.getFont(), param.getFontSize(), param.getFontColor(),
+                    param.isFontBold(), param.isFontItalic());
+            return new StyleKey(param.getHorizontalAlignment(), param.getVerticalAlignment(), param.isWrapText(),
+                    font, dataFormat);
+        }
+    }
+
+    /**
+     * 字体属性
+     */
+    @Value
+    static class FontKey {
+        String name;
+        short size;
+        short color;
+        boolean bold;
+        boolean italic;
+    }
+}
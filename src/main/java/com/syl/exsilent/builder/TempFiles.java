@@ -0,0 +1,160 @@
+package com.syl.exsilent.builder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.util.TempFileCreationStrategy;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * 临时文件
+ * 流式、直写类型的工作表数据在输出前写入临时文件，未指定目录时使用POI的临时文件策略（默认为java.io.tmpdir下的poifiles目录），
+ * 大量并发导出时可指定本地高速磁盘，避免与系统临时目录争用
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+final class TempFiles {
+
+    private TempFiles() {
+    }
+
+    /**
+     * 创建临时文件
+     *
+     * @param directory 目录，为null时使用POI的临时文件策略；不存在时创建
+     * @param prefix    文件名前缀
+     * @param suffix    文件名后缀
+     * @return 临时文件
+     * @throws IOException 创建失败
+     */
+    static File create(Path directory, String prefix, String suffix) throws IOException {
+        if (directory == null) {
+            return TempFile.createTempFile(prefix, suffix);
+        }
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, prefix, suffix).toFile();
+    }
+
+    /**
+     * 创建流式workbook，工作表临时文件写入创建工作表时指定的目录
+     * 指定目录时首次创建工作表前安装{@link DirectoryStrategy}，见其说明
+     *
+     * @param rowAccessWindowSize 在内存中保留的行数
+     * @param compressTempFiles   是否压缩临时文件
+     * @param useSharedStrings    是否使用共享字符串表
+     * @param directory           临时文件目录，创建工作表时获取，为null时使用POI的临时文件策略
+     * @return 流式workbook
+     */
+    static SXSSFWorkbook streamingWorkbook(int rowAccessWindowSize, boolean compressTempFiles, boolean useSharedStrings,
+                                           Supplier<Path> directory) {
+        return new SXSSFWorkbook(new XSSFWorkbook(), rowAccessWindowSize, compressTempFiles, useSharedStrings) {
+            @Override
+            protected SheetDataWriter createSheetDataWriter() throws IOException {
+                Path dir = directory.get();
+                if (dir == null) {
+                    return super.createSheetDataWriter();
+                }
+                return DirectoryStrategy.INSTANCE.within(dir, super::createSheetDataWriter);
+            }
+        };
+    }
+
+    /**
+     * 按线程指定目录的POI临时文件策略
+     * POI的工作表写入器通过全局的{@link TempFile}创建临时文件，没有按workbook指定目录的入口，
+     * 因此在创建写入器期间于当前线程指定目录；其他时候及其他线程的调用与POI默认策略相同。
+     * 首次使用时替换全局策略，应用自行设置的策略会被替换；之后被应用替换时临时文件回到应用策略的目录并记录警告
+     */
+    private static final class DirectoryStrategy implements TempFileCreationStrategy {
+
+        private static final DirectoryStrategy INSTANCE = new DirectoryStrategy();
+
+        /**
+         * POI默认策略
+         */
+        private final TempFileCreationStrategy fallback = new DefaultTempFileCreationStrategy();
+        /**
+         * 当前线程指定的目录
+         */
+        private final ThreadLocal<Path> directory = new ThreadLocal<>();
+        /**
+         * 当前线程是否已在指定目录中创建临时文件
+         */
+        private final ThreadLocal<Boolean> used = new ThreadLocal<>();
+        /**
+         * 是否已安装为全局策略
+         */
+        private volatile boolean installed = false;
+
+        /**
+         * 在当前线程指定目录后创建写入器
+         *
+         * @param dir     临时文件目录
+         * @param factory 写入器工厂
+         * @return 写入器
+         * @throws IOException 创建失败
+         */
+        SheetDataWriter within(Path dir, WriterFactory factory) throws IOException {
+            this.install();
+            this.directory.set(dir);
+            this.used.remove();
+            try {
+                SheetDataWriter writer = factory.create();
+                if (this.used.get() == null) {
+                    log.warn("POI temp file strategy was replaced, sheet data was not written to {}", dir);
+                }
+                return writer;
+            } finally {
+                this.directory.remove();
+                this.used.remove();
+            }
+        }
+
+        private void install() {
+            if (!this.installed) {
+                synchronized (this) {
+                    if (!this.installed) {
+                        TempFile.setTempFileCreationStrategy(this);
+                        this.installed = true;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public File createTempFile(String prefix, String suffix) throws IOException {
+            Path dir = this.directory.get();
+            if (dir == null) {
+                return this.fallback.createTempFile(prefix, suffix);
+            }
+            this.used.set(Boolean.TRUE);
+            return create(dir, prefix, suffix);
+        }
+
+        @Override
+        public File createTempDirectory(String prefix) throws IOException {
+            return this.fallback.createTempDirectory(prefix);
+        }
+    }
+
+    /**
+     * 工作表写入器工厂
+     */
+    @FunctionalInterface
+    private interface WriterFactory {
+        /**
+         * @return 工作表写入器
+         * @throws IOException 创建临时文件失败
+         */
+        SheetDataWriter create() throws IOException;
+    }
+}
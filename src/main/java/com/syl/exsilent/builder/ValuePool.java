@@ -0,0 +1,100 @@
+package com.syl.exsilent.builder;
+
+import java.util.Arrays;
+
+/**
+ * 单元格值池
+ * 相同的值只保存一份并分配int编号，性别等低基数列的大量单元格共享同一个值；
+ * 使用开放寻址哈希表，每个不同的值仅额外占用一个数组槽位，不产生Entry对象
+ * 非线程安全，由SheetBuilder在持有锁时访问
+ *
+ * @since 2023.6.23
+ */
+final class ValuePool {
+    /**
+     * null值编号
+     */
+    static final int NULL_ID = -1;
+    /**
+     * 初始容量
+     */
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * 值，下标即编号
+     */
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    /**
+     * 哈希槽，存储编号+1，0为空槽
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    /**
+     * 值数量
+     */
+    private int size = 0;
+
+    /**
+     * 获取值的编号，不存在时加入值池
+     *
+     * @param value 值
+     * @return 编号
+     */
+    int intern(Object value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        int mask = this.table.length - 1;
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            int slot = this.table[i];
+            if (slot == 0) {
+                int id = this.size++;
+                if (id == this.values.length) {
+                    this.values = Arrays.copyOf(this.values, id << 1);
+                }
+                this.values[id] = value;
+                this.table[i] = id + 1;
+                if (this.size << 1 > this.table.length) {
+                    this.rehash(this.table.length << 1);
+                }
+                return id;
+            }
+            if (this.values[slot - 1].equals(value)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    /**
+     * 根据编号获取值
+     *
+     * @param id 编号
+     * @return 值
+     */
+    Object get(int id) {
+        return id == NULL_ID ? null : this.values[id];
+    }
+
+    /**
+     * @return 值数量
+     */
+    int size() {
+        return this.size;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < this.size; id++) {
+            int i = hash(this.values[id]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        this.table = table;
+    }
+
+    private static int hash(Object value) {
+        int h = value.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,47 @@
+package com.syl.exsilent.builder;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * 文件写入选项
+ * 文件经FileChannel写入，输出先进入堆外缓冲区，缓冲区满后整块写入通道，写入次数与单元格、xml片段的数量无关
+ *
+ * @since 2023.6.23
+ * @see ExcelBuilder#writeTo(java.nio.file.Path, WriteOptions)
+ */
+@Value
+@Builder
+public class WriteOptions {
+    /**
+     * 默认选项：1MB缓冲区，原子替换，不强制落盘
+     */
+    public static final WriteOptions DEFAULT = WriteOptions.builder().build();
+
+    /**
+     * 堆外缓冲区大小，每次导出分配一个
+     */
+    @Builder.Default
+    int bufferSize = 1 << 20;
+    /**
+     * 关闭前是否强制落盘，原子替换时同时强制落盘目标目录；开启后写入耗时包含磁盘同步，适用于导出文件需在宕机后保留的场景
+     */
+    @Builder.Default
+    boolean fsync = false;
+    /**
+     * 是否原子替换
+     * 开启时先写入目标目录下的隐藏文件，写入完成后重命名为目标文件，读取方不会看到写了一半的文件，失败时目标文件保持原样；
+     * 关闭时直接写入目标文件，失败时删除不完整的目标文件
+     */
+    @Builder.Default
+    boolean atomic = true;
+
+    private WriteOptions(int bufferSize, boolean fsync, boolean atomic) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.fsync = fsync;
+        this.atomic = atomic;
+    }
+}
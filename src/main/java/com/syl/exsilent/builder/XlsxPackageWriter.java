@@ -0,0 +1,176 @@
+package com.syl.exsilent.builder;
+
+import org.apache.poi.xssf.model.StylesTable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * xlsx包直写器
+ * 将直写的各工作表与样式表组装为最小的xlsx包：内容类型、关系、workbook、样式及工作表
+ * 流式输出时包在生成数据前打开，首个工作表的条目最先写入且边生成边输出，其余条目在结束时写入
+ *
+ * @since 2023.6.23
+ */
+final class XlsxPackageWriter {
+    private static final String XML_HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    /**
+     * xlsx包
+     */
+    private final ZipOutputStream zip;
+    /**
+     * 条目已打开、边生成边输出的工作表
+     */
+    private SheetXmlWriter streamingSheet = null;
+
+    /**
+     * 构造方法
+     *
+     * @param out 输出流，不关闭
+     */
+    XlsxPackageWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // 输出流由调用方关闭
+                this.flush();
+            }
+        });
+    }
+
+    /**
+     * 打开工作表的条目，工作表数据之后直接写入该条目
+     *
+     * @param sheetWriter 工作表直写器，需为第一个工作表
+     * @throws IOException 写入失败
+     */
+    void stream(SheetXmlWriter sheetWriter) throws IOException {
+        if (this.streamingSheet != null) {
+            throw new IllegalStateException("only one sheet can be streamed");
+        }
+        this.zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        sheetWriter.stream(this.zip);
+        this.streamingSheet = sheetWriter;
+    }
+
+    /**
+     * 输出xlsx包
+     *
+     * @param out          输出流，不关闭
+     * @param sheetWriters 按创建顺序排列的工作表直写器
+     * @param styles       样式表
+     * @throws IOException 写入失败
+     */
+    static void write(OutputStream out, List<SheetXmlWriter> sheetWriters, StylesTable styles) throws IOException {
+        new XlsxPackageWriter(out).finish(sheetWriters, styles);
+    }
+
+    /**
+     * 写入剩余条目并结束xlsx包
+     *
+     * @param sheetWriters 按创建顺序排列的工作表直写器
+     * @param styles       样式表
+     * @throws IOException 写入失败
+     */
+    void finish(List<SheetXmlWriter> sheetWriters, StylesTable styles) throws IOException {
+        ZipOutputStream zip = this.zip;
+        int sheetCount = sheetWriters.size();
+        if (this.streamingSheet != null) {
+            this.streamingSheet.writeTo(zip);
+            zip.closeEntry();
+        }
+
+        StringBuilder contentTypes = new StringBuilder(XML_HEAD)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        entry(zip, "[Content_Types].xml", contentTypes);
+
+        entry(zip, "_rels/.rels", new StringBuilder(XML_HEAD)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .append("<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>")
+                .append("</Relationships>"));
+
+        StringBuilder workbook = new StringBuilder(XML_HEAD)
+                .append("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"")
+                .append(" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(XML_HEAD)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            workbook.append("<sheet name=\"").append(escape(sheetWriters.get(i - 1).sheetName()))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("<Relationship Id=\"rId").append(sheetCount + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                .append("</Relationships>");
+        entry(zip, "xl/workbook.xml", workbook);
+        entry(zip, "xl/_rels/workbook.xml.rels", workbookRels);
+
+        zip.putNextEntry(new ZipEntry("xl/styles.xml"));
+        styles.writeTo(zip);
+        zip.closeEntry();
+
+        for (int i = 1; i <= sheetCount; i++) {
+            SheetXmlWriter sheetWriter = sheetWriters.get(i - 1);
+            if (sheetWriter == this.streamingSheet) {
+                continue;
+            }
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + i + ".xml"));
+            sheetWriter.writeTo(zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.close();
+    }
+
+    private static void entry(ZipOutputStream zip, String name, CharSequence content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.toString().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
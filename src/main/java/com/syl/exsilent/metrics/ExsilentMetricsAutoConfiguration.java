@@ -0,0 +1,32 @@
+package com.syl.exsilent.metrics;
+
+import com.syl.exsilent.builder.ExportMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 导出指标自动配置
+ * 存在MeterRegistry bean时（由actuator自动配置或应用自行声明）注册Micrometer实现的ExportMetrics bean；
+ * 不修改任何全局状态，仅{@link com.syl.exsilent.web.ExcelDownloads}创建的builder自动使用，
+ * 其他builder可注入该bean后通过{@link com.syl.exsilent.builder.ExcelBuilder#metrics}指定。
+ * 可通过exsilent.metrics.enabled=false关闭
+ *
+ * @since 2023.6.23
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "exsilent.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ExsilentMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExportMetrics exportMetrics(MeterRegistry meterRegistry) {
+        return new MicrometerExportMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,141 @@
+package com.syl.exsilent.metrics;
+
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.builder.ExportMetrics;
+import io.micrometer.core.instrument.*;
+import lombok.NonNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Micrometer的导出指标
+ * 工作表级指标以sheet、type为标签，workbook级指标以type为标签；meter在创建工作表时解析一次，回调时直接记录。
+ * sheet标签取自工作表名称，工作表名称随数据变化（如包含日期）时需通过MeterFilter限制标签数量
+ * <ul>
+ *     <li>exsilent.export.cells：追加的单元格数</li>
+ *     <li>exsilent.export.rows：写入工作表的行数</li>
+ *     <li>exsilent.export.merged.regions：合并区域数</li>
+ *     <li>exsilent.export.append：按批次持有工作表锁追加的耗时</li>
+ *     <li>exsilent.export.lock.wait：等待工作表锁的耗时</li>
+ *     <li>exsilent.export.build：构建工作表的耗时</li>
+ *     <li>exsilent.export.styles、exsilent.export.fonts：新建的样式、字体数</li>
+ *     <li>exsilent.export.write：workbook写入输出的耗时</li>
+ *     <li>exsilent.export.bytes：写入输出的字节数</li>
+ * </ul>
+ *
+ * @since 2023.6.23
+ */
+public class MicrometerExportMetrics implements ExportMetrics {
+    /**
+     * 指标名称前缀
+     */
+    public static final String PREFIX = "exsilent.export.";
+
+    private final MeterRegistry registry;
+
+    private final Map<ExcelType, Counter> styles = new EnumMap<>(ExcelType.class);
+
+    private final Map<ExcelType, Counter> fonts = new EnumMap<>(ExcelType.class);
+
+    private final Map<ExcelType, Timer> writes = new EnumMap<>(ExcelType.class);
+
+    private final Map<ExcelType, DistributionSummary> bytes = new EnumMap<>(ExcelType.class);
+
+    public MicrometerExportMetrics(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        for (ExcelType excelType : ExcelType.values()) {
+            Tags tags = Tags.of("type", excelType.name());
+            this.styles.put(excelType, Counter.builder(PREFIX + "styles").description("Cell styles created")
+                    .tags(tags).register(registry));
+            this.fonts.put(excelType, Counter.builder(PREFIX + "fonts").description("Fonts created")
+                    .tags(tags).register(registry));
+            this.writes.put(excelType, Timer.builder(PREFIX + "write").description("Time spent writing workbooks to the output")
+                    .tags(tags).register(registry));
+            this.bytes.put(excelType, DistributionSummary.builder(PREFIX + "bytes").description("Bytes written per workbook")
+                    .baseUnit("bytes").tags(tags).register(registry));
+        }
+    }
+
+    @Override
+    public SheetMetrics sheet(String sheetName, ExcelType excelType) {
+        return new MicrometerSheetMetrics(this.registry, Tags.of("sheet", sheetName, "type", excelType.name()));
+    }
+
+    @Override
+    public void styleCreated(ExcelType excelType) {
+        this.styles.get(excelType).increment();
+    }
+
+    @Override
+    public void fontCreated(ExcelType excelType) {
+        this.fonts.get(excelType).increment();
+    }
+
+    @Override
+    public void written(ExcelType excelType, long bytes, long nanos) {
+        this.writes.get(excelType).record(nanos, TimeUnit.NANOSECONDS);
+        this.bytes.get(excelType).record(bytes);
+    }
+
+    /**
+     * 工作表指标
+     */
+    private static final class MicrometerSheetMetrics implements SheetMetrics {
+        private final Counter cells;
+
+        private final Counter rows;
+
+        private final Counter mergedRegions;
+
+        private final Timer append;
+
+        private final Timer lockWait;
+
+        private final Timer build;
+
+        MicrometerSheetMetrics(MeterRegistry registry, Tags tags) {
+            this.cells = Counter.builder(PREFIX + "cells").description("Cells appended").tags(tags).register(registry);
+            this.rows = Counter.builder(PREFIX + "rows").description("Rows emitted to the sheet").tags(tags).register(registry);
+            this.mergedRegions = Counter.builder(PREFIX + "merged.regions").description("Merged regions written")
+                    .tags(tags).register(registry);
+            this.append = Timer.builder(PREFIX + "append").description("Time spent appending batches under the sheet lock")
+                    .tags(tags).register(registry);
+            this.lockWait = Timer.builder(PREFIX + "lock.wait").description("Time spent waiting for the sheet lock")
+                    .tags(tags).register(registry);
+            this.build = Timer.builder(PREFIX + "build").description("Time spent building sheets")
+                    .tags(tags).register(registry);
+        }
+
+        @Override
+        public void appended(long cells, long nanos) {
+            this.cells.increment(cells);
+            this.append.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void lockWaited(long nanos) {
+            this.lockWait.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void rowsEmitted(long rows) {
+            if (rows > 0) {
+                this.rows.increment(rows);
+            }
+        }
+
+        @Override
+        public void mergedRegions(long regions) {
+            if (regions > 0) {
+                this.mergedRegions.increment(regions);
+            }
+        }
+
+        @Override
+        public void built(long nanos) {
+            this.build.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
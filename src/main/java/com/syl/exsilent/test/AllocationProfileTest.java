@@ -0,0 +1,52 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.annontion.StringStrategy;
+import com.syl.exsilent.builder.ExcelBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * 字符串存储策略的输出统计
+ * 单元格缓存及各字符串存储策略的内存占用见基准测试BufferMemoryBenchmark、StringStrategyBenchmark
+ */
+public class AllocationProfileTest {
+
+    /**
+     * 字符串存储策略对比的行数
+     */
+    private static final int UNIQUE_ROWS = 5_000;
+
+    /**
+     * 各字符串存储策略的输出大小
+     * 各列的值均唯一，共享字符串表无法复用字符串，内联字符串的输出更小
+     */
+    @Test
+    public void stringStrategyOutputTest() {
+        ExcelBuilder.ExcelType[] excelTypes = {ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLSX_STREAMING};
+        StringStrategy[] strategies = {StringStrategy.SST, StringStrategy.INLINE};
+        for (ExcelBuilder.ExcelType excelType : excelTypes) {
+            int[] sizes = new int[strategies.length];
+            for (int i = 0; i < strategies.length; i++) {
+                ExcelBuilder excelBuilder = new ExcelBuilder(excelType, strategies[i]);
+                excelBuilder.sheetBuilder("一年级学生信息").append(uniqueStudents(), Student.class);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                excelBuilder.writeAndClose(outputStream);
+                sizes[i] = outputStream.size();
+            }
+            Assert.assertTrue(excelType + " inline output", sizes[1] < sizes[0]);
+        }
+    }
+
+    /**
+     * 各字段值均唯一的学生数据
+     */
+    private static Iterator<Student> uniqueStudents() {
+        return IntStream.range(0, UNIQUE_ROWS).mapToObj(i -> Student.builder()
+                .index("编号" + i).name("学生" + i).age("年龄" + i).gender("性别" + i)
+                .grade1("语文" + i).grade2("数学" + i).grade3("英语" + i).build()).iterator();
+    }
+}
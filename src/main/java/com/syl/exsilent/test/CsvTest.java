@@ -0,0 +1,55 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.builder.CsvBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CsvTest {
+
+    @Test
+    public void csvTest() {
+        List<Student> students = new ArrayList<>();
+        students.add(Student.builder().index("1").name("张三").age("16").gender("男").grade1("75").grade2("85").grade3("89").build());
+        students.add(Student.builder().index("2").name("李\"四\",小名\n阿四").age("17").gender("男").grade1("88").grade2("95").grade3("87").build());
+
+        StringWriter writer = new StringWriter();
+        try (CsvBuilder csvBuilder = new CsvBuilder(CsvBuilder.Format.CSV, writer)) {
+            csvBuilder.append(students);
+        }
+        Assert.assertEquals("序号,姓名,年龄,性别,成绩/语文,成绩/数学,成绩/英语\r\n"
+                + "1,张三,16,男,75,85,89\r\n"
+                + "2,\"李\"\"四\"\",小名\n阿四\",17,男,88,95,87\r\n", writer.toString());
+
+        // 字节通道与字符输出内容一致
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (CsvBuilder csvBuilder = new CsvBuilder(CsvBuilder.Format.CSV, Channels.newChannel(outputStream))) {
+            csvBuilder.append(students);
+        }
+        Assert.assertEquals(writer.toString(), outputStream.toString(StandardCharsets.UTF_8));
+
+        writer = new StringWriter();
+        try (CsvBuilder csvBuilder = new CsvBuilder(CsvBuilder.Format.TSV, writer)) {
+            csvBuilder.append(students.subList(1, 2));
+        }
+        Assert.assertEquals("序号\t姓名\t年龄\t性别\t成绩/语文\t成绩/数学\t成绩/英语\n"
+                + "2\t李\"四\",小名\\n阿四\t17\t男\t88\t95\t87\n", writer.toString());
+
+        writer = new StringWriter();
+        try (CsvBuilder csvBuilder = new CsvBuilder(CsvBuilder.Format.CSV, writer)) {
+            csvBuilder.append(Stream.of(Score.builder().name("张三").total(249).average(new BigDecimal("83.333"))
+                    .passed(true).examDate(LocalDate.of(2023, 6, 23)).build()), Score.class);
+        }
+        Assert.assertEquals("姓名,总分,平均分,是否及格,考试日期,录入时间\r\n"
+                + "张三,249,83.33,TRUE,2023-06-23,\r\n", writer.toString());
+    }
+}
@@ -0,0 +1,235 @@
+package com.syl.exsilent.test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.syl.exsilent.builder.CsvBuilder;
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelReader;
+import com.syl.exsilent.web.ExcelDownloads;
+import com.syl.exsilent.web.ExsilentWebAutoConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class DownloadTest {
+
+    @Test
+    public void downloadTest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StudentController(new ExcelDownloads())).build();
+        for (String path : new String[]{"/students.xlsx", "/students.xls"}) {
+            MvcResult mvcResult = mockMvc.perform(get(path)).andExpect(request().asyncStarted()).andReturn();
+            byte[] bytes = mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                            containsString("filename*=UTF-8''%E5%AD%A6%E7%94%9F" + path.substring(9))))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_LENGTH))
+                    .andReturn().getResponse().getContentAsByteArray();
+            long count = new ExcelReader<>(Student.class).read(new ByteArrayInputStream(bytes), batch -> {
+            });
+            Assert.assertEquals(3000, count);
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/students.csv")).andExpect(request().asyncStarted()).andReturn();
+        String csv = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ExcelDownloads.CSV))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        Assert.assertTrue(csv.startsWith("序号,姓名,年龄,性别,成绩/语文,成绩/数学,成绩/英语\r\n0,学生0,"));
+        Assert.assertEquals(3001, csv.lines().count());
+    }
+
+    @Test
+    public void disconnectTest() {
+        Logger root = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        root.addAppender(appender);
+        try {
+            // 下载连接在写出64KB后断开，直写类型的数据生成随之终止
+            AtomicInteger produced = new AtomicInteger();
+            StreamingResponseBody body = new ExcelDownloads().excelBody(ExcelBuilder.ExcelType.XLSX_DIRECT,
+                    excelBuilder -> excelBuilder.sheetBuilder("一年级学生信息").append(students(1_000_000, produced), Student.class));
+            Assert.assertThrows(IOException.class, () -> body.writeTo(new DisconnectingOutputStream(64 << 10)));
+            Assert.assertTrue(produced.get() < 100_000);
+
+            // 流式类型构建完成后写出时断开
+            StreamingResponseBody streamingBody = new ExcelDownloads().excelBody(ExcelBuilder.ExcelType.XLSX_STREAMING,
+                    excelBuilder -> excelBuilder.sheetBuilder("一年级学生信息").append(students(20_000, new AtomicInteger()), Student.class));
+            Assert.assertThrows(IOException.class, () -> streamingBody.writeTo(new DisconnectingOutputStream(64 << 10)));
+            // 数据源出错时放弃导出
+            StreamingResponseBody failingBody = new ExcelDownloads().excelBody(ExcelBuilder.ExcelType.XLSX_STREAMING, excelBuilder -> {
+                excelBuilder.sheetBuilder("一年级学生信息").append(students(20_000, new AtomicInteger()), Student.class);
+                throw new IllegalStateException("cursor closed");
+            });
+            Assert.assertThrows(IllegalStateException.class, () -> failingBody.writeTo(new ByteArrayOutputStream()));
+
+            produced.set(0);
+            StreamingResponseBody csvBody = new ExcelDownloads().csvBody(CsvBuilder.Format.CSV,
+                    csvBuilder -> csvBuilder.append(students(1_000_000, produced), Student.class));
+            Assert.assertThrows(IOException.class, () -> csvBody.writeTo(new DisconnectingOutputStream(64 << 10)));
+            Assert.assertTrue(produced.get() < 100_000);
+        } finally {
+            root.detachAppender(appender);
+        }
+        // 断开属于正常情况，不应记录警告
+        List<String> warnings = appender.list.stream().filter(event -> event.getLevel().isGreaterOrEqual(Level.WARN))
+                .map(event -> event.getLoggerName() + ": " + event.getFormattedMessage()).toList();
+        Assert.assertEquals(List.of(), warnings);
+    }
+
+    @Test
+    public void keepOpenTest() throws IOException {
+        // 响应输出流结束时只刷新，由servlet容器关闭
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLSX_DIRECT,
+                ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLS}) {
+            TrackingOutputStream outputStream = new TrackingOutputStream();
+            new ExcelDownloads().excelBody(excelType, excelBuilder -> excelBuilder.sheetBuilder("一年级学生信息")
+                    .append(students(100, new AtomicInteger()), Student.class)).writeTo(outputStream);
+            Assert.assertFalse(outputStream.closed);
+            Assert.assertTrue(outputStream.flushed);
+            Assert.assertEquals(100, new ExcelReader<>(Student.class).read(new ByteArrayInputStream(outputStream.toByteArray()), batch -> {
+            }));
+        }
+
+        TrackingOutputStream outputStream = new TrackingOutputStream();
+        new ExcelDownloads().csvBody(CsvBuilder.Format.CSV, csvBuilder -> csvBuilder.append(students(100, new AtomicInteger()),
+                Student.class)).writeTo(outputStream);
+        Assert.assertFalse(outputStream.closed);
+        Assert.assertTrue(outputStream.flushed);
+        Assert.assertEquals(101, outputStream.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    public void autoConfigurationTest() {
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ExsilentWebAutoConfiguration.class))
+                .run(context -> Assert.assertNotNull(context.getBean(ExcelDownloads.class)));
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ExsilentWebAutoConfiguration.class))
+                .run(context -> Assert.assertTrue(context.getBeansOfType(ExcelDownloads.class).isEmpty()));
+    }
+
+    private static Iterator<Student> students(int total, AtomicInteger produced) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return produced.get() < total;
+            }
+
+            @Override
+            public Student next() {
+                int n = produced.getAndIncrement();
+                return Student.builder().index(String.valueOf(n)).name("学生" + n).age("16").gender(n % 2 == 0 ? "男" : "女")
+                        .grade1("75").grade2("85").grade3("89").build();
+            }
+        };
+    }
+
+    @RestController
+    static class StudentController {
+        private final ExcelDownloads excelDownloads;
+
+        StudentController(ExcelDownloads excelDownloads) {
+            this.excelDownloads = excelDownloads;
+        }
+
+        @GetMapping("/students.xlsx")
+        ResponseEntity<StreamingResponseBody> xlsx() {
+            return this.excelDownloads.excel("学生.xlsx", ExcelBuilder.ExcelType.XLSX_DIRECT,
+                    excelBuilder -> excelBuilder.sheetBuilder("一年级学生信息").append(students(3000, new AtomicInteger()), Student.class));
+        }
+
+        @GetMapping("/students.xls")
+        ResponseEntity<StreamingResponseBody> xls() {
+            return this.excelDownloads.excel("学生.xls", ExcelBuilder.ExcelType.XLS,
+                    excelBuilder -> excelBuilder.sheetBuilder("一年级学生信息").append(students(3000, new AtomicInteger()), Student.class));
+        }
+
+        @GetMapping("/students.csv")
+        ResponseEntity<StreamingResponseBody> csv() {
+            return this.excelDownloads.csv("学生.csv", CsvBuilder.Format.CSV,
+                    csvBuilder -> csvBuilder.append(students(3000, new AtomicInteger()), Student.class));
+        }
+    }
+
+    /**
+     * 记录最后一次写入后是否刷新及是否关闭的输出流
+     */
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean flushed;
+        private boolean closed;
+
+        @Override
+        public synchronized void write(int b) {
+            super.write(b);
+            this.flushed = false;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            this.flushed = false;
+        }
+
+        @Override
+        public void flush() {
+            this.flushed = true;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * 写出指定字节数后断开的输出流
+     */
+    private static class DisconnectingOutputStream extends OutputStream {
+        private long remaining;
+
+        DisconnectingOutputStream(long limit) {
+            this.remaining = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > this.remaining) {
+                throw new IOException("connection reset by peer");
+            }
+            this.remaining -= len;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ExcelReaderTest {
+
+    @Test
+    public void readTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3(i % 3 == 0 ? null : "89").build());
+        }
+        Date updateTime = new Date(1687500000000L);
+        List<Score> scores = new ArrayList<>();
+        scores.add(Score.builder().name("张三").total(249).average(new BigDecimal("83.333")).passed(true)
+                .examDate(LocalDate.of(2023, 6, 23)).updateTime(updateTime).build());
+        scores.add(Score.builder().name("李四").passed(false).examDate(LocalDate.of(2023, 6, 24)).build());
+
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLS,
+                ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLSX_STREAMING, ExcelBuilder.ExcelType.XLSX_DIRECT}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            excelBuilder.sheetBuilder("成绩").append(scores);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            byte[] bytes = outputStream.toByteArray();
+
+            // 按批次回调，层级表头按平铺名称匹配
+            List<Student> readStudents = new ArrayList<>();
+            AtomicInteger batches = new AtomicInteger();
+            long count = new ExcelReader<>(Student.class).batchSize(1000)
+                    .read(new ByteArrayInputStream(bytes), batch -> {
+                        batches.incrementAndGet();
+                        readStudents.addAll(batch);
+                    });
+            Assert.assertEquals(students.size(), count);
+            Assert.assertEquals(3, batches.get());
+            Assert.assertEquals(students, readStudents);
+
+            List<Score> readScores = new ArrayList<>();
+            new ExcelReader<>(Score.class).sheet("成绩").read(new ByteArrayInputStream(bytes), readScores::addAll);
+            Assert.assertEquals(scores, readScores);
+        }
+    }
+
+    @Test
+    public void largeReadTest() throws Exception {
+        // 堆内存随行数的变化见ReadBenchmark
+        int total = 50_000;
+        File file = File.createTempFile("exsilent-read-test", ".xlsx");
+        try {
+            ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT);
+            excelBuilder.sheetBuilder("一年级学生信息").append(students(total), Student.class);
+            excelBuilder.writeAndClose(file);
+
+            AtomicLong lastIndex = new AtomicLong(-1);
+            long count = new ExcelReader<>(Student.class).read(file, batch -> {
+                for (Student student : batch) {
+                    Assert.assertEquals(lastIndex.incrementAndGet(), Long.parseLong(student.getIndex()));
+                }
+            });
+            Assert.assertEquals(total, count);
+            Assert.assertEquals(total - 1, lastIndex.get());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private static Iterator<Student> students(int total) {
+        return new Iterator<>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < total;
+            }
+
+            @Override
+            public Student next() {
+                int n = i++;
+                return Student.builder().index(String.valueOf(n)).name("学生" + n).age("16").gender(n % 2 == 0 ? "男" : "女")
+                        .grade1("75").grade2("85").grade3("89").build();
+            }
+        };
+    }
+}
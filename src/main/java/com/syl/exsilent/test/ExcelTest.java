@@ -1,16 +1,58 @@
 package com.syl.exsilent.test;
 
 import cn.hutool.core.collection.ListUtil;
+import com.syl.exsilent.annontion.ExcelCell;
+import com.syl.exsilent.annontion.ExcelModule;
+import com.syl.exsilent.annontion.StringStrategy;
+import com.syl.exsilent.builder.ConcurrentAppender;
 import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelReader;
+import com.syl.exsilent.builder.ExcelTemplate;
+import com.syl.exsilent.builder.ExportMetrics;
+import com.syl.exsilent.builder.ExportResult;
 import com.syl.exsilent.builder.SheetBuilder;
+import com.syl.exsilent.builder.WriteOptions;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * todo 设置边框
@@ -105,4 +147,714 @@ public class ExcelTest {
 
     }
 
+    @Test
+    public void concurrentAppendTest() throws InterruptedException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+        SheetBuilder sheetBuilder = excelBuilder.sheetBuilder("一年级学生信息");
+        ConcurrentAppender<Student> appender = sheetBuilder.concurrentAppender(Student.class);
+
+        // 乱序提交数据块，按序号排列
+        List<List<Student>> partition = ListUtil.partition(students, 10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = partition.size() - 1; i >= 0; i--) {
+            long sequence = i;
+            List<Student> studentList = partition.get(i);
+            executor.execute(() -> appender.append(sequence, studentList));
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        appender.close();
+
+        // 表头占2行，数据从第3行开始
+        Sheet sheet = excelBuilder.sheet("一年级学生信息");
+        for (int i = 0; i < students.size(); i++) {
+            Assert.assertEquals(String.valueOf(i), sheet.getRow(i + 2).getCell(0).getStringCellValue());
+        }
+        Assert.assertNull(sheet.getRow(students.size() + 2));
+
+        // 行数超过续表可容纳行数的数据块被拒绝，序号不被占用
+        List<Student> tall = new ArrayList<>();
+        for (int i = 0; i < 65535; i++) {
+            tall.add(students.get(i % students.size()));
+        }
+        ExcelBuilder xls = new ExcelBuilder(ExcelBuilder.ExcelType.XLS);
+        ConcurrentAppender<Student> xlsAppender = xls.sheetBuilder("一年级学生信息").concurrentAppender(Student.class);
+        Assert.assertThrows(IllegalArgumentException.class, () -> xlsAppender.append(0, tall));
+        xlsAppender.append(0, students);
+        xlsAppender.close();
+        Assert.assertEquals(students.size() + 1, xls.sheet("一年级学生信息").getLastRowNum());
+    }
+
+    @Test
+    public void duplicateSequenceTest() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+                ConcurrentAppender<Student> appender = excelBuilder.sheetBuilder("一年级学生信息").concurrentAppender(Student.class);
+                // 两个线程同时提交同一序号，只有一个数据块被接受
+                CountDownLatch start = new CountDownLatch(1);
+                List<CompletableFuture<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    results.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            appender.append(0, students);
+                            return true;
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, executor));
+                }
+                start.countDown();
+                int accepted = 0;
+                for (CompletableFuture<Boolean> result : results) {
+                    accepted += result.get() ? 1 : 0;
+                }
+                Assert.assertEquals(1, accepted);
+                Assert.assertEquals(1, appender.nextSequence());
+                Assert.assertThrows(IllegalArgumentException.class, () -> appender.append(0, students));
+                appender.append(1, students);
+                appender.close();
+                // 表头2行，每个序号的数据块只放置一次
+                Assert.assertEquals(2 + 2 * students.size() - 1, excelBuilder.sheet("一年级学生信息").getLastRowNum());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void incrementalTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        List<Score> scores = List.of(Score.builder().name("张三").total(249).passed(true).build());
+        for (ExcelBuilder.ExcelType excelType : List.of(ExcelBuilder.ExcelType.XLSX_STREAMING, ExcelBuilder.ExcelType.XLSX_DIRECT)) {
+            AtomicInteger emitted = new AtomicInteger();
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType).metrics(new ExportMetrics() {
+                @Override
+                public SheetMetrics sheet(String sheetName, ExcelBuilder.ExcelType type) {
+                    return new SheetMetrics() {
+                        @Override
+                        public void rowsEmitted(long rows) {
+                            emitted.addAndGet((int) rows);
+                        }
+                    };
+                }
+            });
+            // 构建前已完成的行即已输出
+            SheetBuilder sheetBuilder = excelBuilder.sheetBuilder("成绩").append(scores);
+            Assert.assertEquals(1 + scores.size(), emitted.get());
+
+            // 已输出后写入更宽的数据被拒绝，工作表保持原样
+            Assert.assertThrows(IllegalStateException.class, () -> sheetBuilder.append(students));
+            Assert.assertEquals(1 + scores.size(), emitted.get());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            List<Score> read = new ArrayList<>();
+            new ExcelReader<>(Score.class).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+            Assert.assertEquals(scores, read);
+        }
+
+        // 先写入最宽的数据时不受影响
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT);
+        excelBuilder.sheetBuilder("一年级学生信息").append(students).append(scores);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        excelBuilder.writeAndClose(outputStream);
+        List<Student> read = new ArrayList<>();
+        new ExcelReader<>(Student.class).batchSize(2000).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+        Assert.assertEquals(students, read.subList(0, students.size()));
+    }
+
+    @Test
+    public void typedCellTest() {
+        List<Score> scores = new ArrayList<>();
+        scores.add(Score.builder().name("张三").total(249).average(new BigDecimal("83.333")).passed(true)
+                .examDate(LocalDate.of(2023, 6, 23)).updateTime(new Date()).build());
+        scores.add(Score.builder().name("李四").total(null).average(null).passed(false)
+                .examDate(LocalDate.of(2023, 6, 23)).updateTime(new Date()).build());
+
+        // 直写类型没有POI工作表，见directWriteTest
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLS,
+                ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLSX_STREAMING}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            excelBuilder.sheetBuilder("成绩").append(scores);
+            excelBuilder.build();
+
+            Row row = excelBuilder.sheet("成绩").getRow(1);
+            Assert.assertEquals(CellType.STRING, row.getCell(0).getCellType());
+            Assert.assertEquals(249, row.getCell(1).getNumericCellValue(), 0);
+            Assert.assertEquals(83.333, row.getCell(2).getNumericCellValue(), 0);
+            Assert.assertEquals("0.00", row.getCell(2).getCellStyle().getDataFormatString());
+            Assert.assertTrue(row.getCell(3).getBooleanCellValue());
+            Assert.assertEquals(LocalDate.of(2023, 6, 23), row.getCell(4).getLocalDateTimeCellValue().toLocalDate());
+            Assert.assertEquals("yyyy-mm-dd", row.getCell(4).getCellStyle().getDataFormatString());
+            Assert.assertEquals("yyyy/mm/dd hh:mm", row.getCell(5).getCellStyle().getDataFormatString());
+            Assert.assertEquals(CellType.BLANK, excelBuilder.sheet("成绩").getRow(2).getCell(1).getCellType());
+        }
+    }
+
+    @Test
+    public void stringStrategyTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+
+        // 自动策略：唯一值列采样结束后内联，重复值列写入共享字符串表
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX, StringStrategy.AUTO);
+        excelBuilder.sheetBuilder("一年级学生信息").append(students);
+        XSSFWorkbook workbook = excelBuilder.xssfWorkbook();
+        XSSFRow row = workbook.getSheet("一年级学生信息").getRow(students.size() + 1);
+        Assert.assertEquals(STCellType.INLINE_STR, row.getCell(1).getCTCell().getT());
+        Assert.assertEquals(STCellType.S, row.getCell(3).getCTCell().getT());
+        Assert.assertEquals("学生4999", row.getCell(1).getStringCellValue());
+        Assert.assertTrue(workbook.getSharedStringSource().getUniqueCount() < 3000);
+    }
+
+    @Test
+    public void directWriteTest() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("<学生&" + i + ">").age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        List<Score> scores = new ArrayList<>();
+        scores.add(Score.builder().name("张三").total(249).average(new BigDecimal("83.333")).passed(true)
+                .examDate(LocalDate.of(2023, 6, 23)).updateTime(new Date()).build());
+
+        // 直写类型与xlsx类型的输出内容一致
+        List<XSSFWorkbook> workbooks = new ArrayList<>();
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLSX_DIRECT}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            excelBuilder.sheetBuilder("一年级学生信息").append(StudentExcel.builder().title("一年级1班学生信息").students(students).build());
+            excelBuilder.sheetBuilder("成绩").append(scores);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            workbooks.add(new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray())));
+        }
+        DataFormatter formatter = new DataFormatter();
+        for (int sheetIndex = 0; sheetIndex < 2; sheetIndex++) {
+            Sheet expected = workbooks.get(0).getSheetAt(sheetIndex);
+            Sheet actual = workbooks.get(1).getSheetAt(sheetIndex);
+            Assert.assertEquals(expected.getSheetName(), actual.getSheetName());
+            Assert.assertEquals(expected.getLastRowNum(), actual.getLastRowNum());
+            Assert.assertEquals(expected.getMergedRegions(), actual.getMergedRegions());
+            for (Row expectedRow : expected) {
+                Row actualRow = actual.getRow(expectedRow.getRowNum());
+                Assert.assertEquals(expectedRow.getHeightInPoints(), actualRow.getHeightInPoints(), 0);
+                for (Cell expectedCell : expectedRow) {
+                    Cell actualCell = actualRow.getCell(expectedCell.getColumnIndex());
+                    Assert.assertEquals(expectedCell.getCellType(), actualCell.getCellType());
+                    Assert.assertEquals(formatter.formatCellValue(expectedCell), formatter.formatCellValue(actualCell));
+                    Assert.assertEquals(expectedCell.getCellStyle().getFontIndex(), actualCell.getCellStyle().getFontIndex());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rolloverTest() {
+        int total = 70000;
+        List<Student> students = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+
+        // xls最多65536行，超出的数据写入续表，续表重复表头
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLS);
+        excelBuilder.sheetBuilder("一年级学生信息").append(students).append(students.subList(0, 10));
+        Workbook workbook = excelBuilder.workbook();
+        Assert.assertEquals(2, workbook.getNumberOfSheets());
+        Sheet first = workbook.getSheet("一年级学生信息");
+        Sheet second = workbook.getSheet("一年级学生信息 (2)");
+        Assert.assertEquals(65535, first.getLastRowNum());
+        Assert.assertEquals("65533", first.getRow(65535).getCell(0).getStringCellValue());
+        Assert.assertEquals("序号", second.getRow(0).getCell(0).getStringCellValue());
+        Assert.assertEquals("语文", second.getRow(1).getCell(4).getStringCellValue());
+        Assert.assertEquals("65534", second.getRow(2).getCell(0).getStringCellValue());
+        // 后续追加的数据写入续表末尾
+        Assert.assertEquals(2 + (total - 65534) + 2 + 10 - 1, second.getLastRowNum());
+        Assert.assertEquals(first.getMergedRegions().size(), second.getMergedRegions().size() / 2);
+    }
+
+    @Test
+    public void concurrentRolloverTest() throws InterruptedException {
+        int threads = 4;
+        int perThread = 20000;
+        List<Student> students = new ArrayList<>(perThread);
+        for (int i = 0; i < perThread; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+
+        // 多个线程同时写满工作表，续表只由首个切换的线程写入表头
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLS);
+        SheetBuilder sheetBuilder = excelBuilder.sheetBuilder("一年级学生信息");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                sheetBuilder.append(students);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Workbook workbook = excelBuilder.workbook();
+        Assert.assertEquals(2, workbook.getNumberOfSheets());
+        int records = 0;
+        int continuationHeaders = 0;
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            for (Row row : workbook.getSheetAt(i)) {
+                // 表头第2行的序号列为合并单元格
+                Cell cell = row.getCell(0);
+                if (cell == null) {
+                    continue;
+                }
+                if ("序号".equals(cell.getStringCellValue())) {
+                    continuationHeaders += i;
+                } else {
+                    records++;
+                }
+            }
+        }
+        Assert.assertEquals(threads * perThread, records);
+        Assert.assertEquals(1, continuationHeaders);
+        Assert.assertEquals("序号", workbook.getSheetAt(1).getRow(0).getCell(0).getStringCellValue());
+    }
+
+    @Test
+    public void writeAsyncTest() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+
+        // 构建及写入在线程池中执行，结果中包含写入字节数及耗时
+        List<CompletableFuture<ExportResult>> futures = new ArrayList<>();
+        List<ByteArrayOutputStream> outputStreams = new ArrayList<>();
+        for (ExcelBuilder.ExcelType excelType : ExcelBuilder.ExcelType.values()) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStreams.add(outputStream);
+            futures.add(excelBuilder.writeAsync(outputStream));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            ExportResult result = futures.get(i).get(1, TimeUnit.MINUTES);
+            Assert.assertEquals(ExcelBuilder.ExcelType.values()[i], result.getExcelType());
+            Assert.assertEquals(outputStreams.get(i).size(), result.getBytesWritten());
+            Assert.assertTrue(result.isClean());
+        }
+
+        // 写入失败时future以异常结束
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_STREAMING);
+        excelBuilder.sheetBuilder("一年级学生信息").append(students);
+        CompletableFuture<ExportResult> failed = excelBuilder.writeAsync(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        try {
+            failed.get(1, TimeUnit.MINUTES);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals("disk full", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void parallelBuildTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // 仅直写类型支持并行构建，POI类型的workbook非线程安全
+            for (ExcelBuilder.ExcelType excelType : List.of(ExcelBuilder.ExcelType.XLS, ExcelBuilder.ExcelType.XLSX,
+                    ExcelBuilder.ExcelType.XLSX_STREAMING)) {
+                Assert.assertThrows(IllegalStateException.class, () -> new ExcelBuilder(excelType).parallelBuild(executor));
+                Assert.assertThrows(IllegalStateException.class, () -> new ExcelBuilder(excelType).parallelBuild(true));
+                new ExcelBuilder(excelType).parallelBuild(false).abort();
+            }
+            ExcelBuilder parallel = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT).parallelBuild(executor);
+            for (int i = 0; i < 6; i++) {
+                parallel.sheetBuilder("学生" + i).incremental(false).append(students);
+            }
+            ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+            parallel.writeAndClose(parallelOutput);
+            for (int i = 0; i < 6; i++) {
+                List<Student> read = new ArrayList<>();
+                new ExcelReader<>(Student.class).sheet("学生" + i).read(new ByteArrayInputStream(parallelOutput.toByteArray()), read::addAll);
+                Assert.assertEquals(students, read);
+            }
+
+            // 某个工作表被线程池拒绝时其余工作表照常构建，被拒绝的工作表保留数据，可再次构建
+            AtomicInteger submitted = new AtomicInteger();
+            ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT).parallelBuild(command -> {
+                if (submitted.incrementAndGet() == 2) {
+                    throw new RejectedExecutionException("busy");
+                }
+                executor.execute(command);
+            });
+            for (int i = 0; i < 3; i++) {
+                excelBuilder.sheetBuilder("学生" + i).incremental(false).append(students);
+            }
+            Assert.assertThrows(RejectedExecutionException.class, excelBuilder::build);
+            excelBuilder.parallelBuild((Executor) null);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            for (int i = 0; i < 3; i++) {
+                List<Student> read = new ArrayList<>();
+                new ExcelReader<>(Student.class).sheet("学生" + i).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+                Assert.assertEquals(students, read);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void mergedRegionTest() {
+        // 每次追加都写入两行表头，共5个合并区域
+        Student student = Student.builder().index("1").name("张三").age("16").gender("男").grade1("75").grade2("85").grade3("89").build();
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLS, ExcelBuilder.ExcelType.XLSX}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            SheetBuilder sheetBuilder = excelBuilder.sheetBuilder("一年级学生信息");
+            for (int i = 0; i < 4000; i++) {
+                sheetBuilder.append(List.of(student));
+            }
+            Sheet sheet = excelBuilder.sheet("一年级学生信息");
+            Assert.assertEquals(20000, sheet.getNumMergedRegions());
+            excelBuilder.writeAndClose(OutputStream.nullOutputStream());
+        }
+
+        // 重叠的合并区域在追加时即失败，被拒绝的单元格不改变样式及行状态
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+        ExcelBuilder expected = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+        try {
+            SheetBuilder overlapped = excelBuilder.sheetBuilder("重叠");
+            try {
+                overlapped.append(new Titled(List.of(new MergedRow("a", "b")), "标题"));
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("merged region A2:B2 overlaps B1:B3 in sheet 重叠", e.getMessage());
+            }
+            expected.sheetBuilder("重叠").append(List.of(new MergedRow("a", "b")));
+            Assert.assertEquals(expected.styleRegistry().styleCount(), excelBuilder.styleRegistry().styleCount());
+            Assert.assertEquals(expected.styleRegistry().hitCount(), excelBuilder.styleRegistry().hitCount());
+            Assert.assertEquals(expected.styleRegistry().missCount(), excelBuilder.styleRegistry().missCount());
+            // 之后的追加从原有的待插入行继续
+            overlapped.append(List.of(new MergedRow("c", "d")));
+            Sheet sheet = excelBuilder.sheet("重叠");
+            Assert.assertEquals(2, sheet.getNumMergedRegions());
+            Assert.assertEquals("B1:B3", sheet.getMergedRegion(0).formatAsString());
+            Assert.assertEquals("a", sheet.getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals("c", sheet.getRow(1).getCell(0).getStringCellValue());
+            Assert.assertEquals("B4:B6", sheet.getMergedRegion(1).formatAsString());
+        } finally {
+            excelBuilder.abort();
+            expected.abort();
+        }
+    }
+
+    @Test
+    public void styleDedupTest() {
+        // 相同属性的单元格共享样式及字体，单元格数超过xls的4000个样式上限
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLS, ExcelBuilder.ExcelType.XLSX}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType);
+            Workbook workbook = excelBuilder.workbook();
+            int defaultStyles = workbook.getNumCellStyles();
+            int defaultFonts = workbook.getNumberOfFonts();
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            excelBuilder.build();
+            // 表头及数据各一种样式
+            Assert.assertEquals(2, excelBuilder.styleRegistry().styleCount());
+            Assert.assertEquals(defaultStyles + excelBuilder.styleRegistry().styleCount(), workbook.getNumCellStyles());
+            Assert.assertEquals(defaultFonts + excelBuilder.styleRegistry().fontCount(), workbook.getNumberOfFonts());
+            Assert.assertTrue(excelBuilder.styleRegistry().hitCount() > 4000);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            List<Student> read = new ArrayList<>();
+            new ExcelReader<>(Student.class).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+            Assert.assertEquals(students, read);
+        }
+    }
+
+    @Test
+    public void headerTemplateTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).build());
+        }
+        ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+        excelBuilder.sheetBuilder("一年级学生信息").append(students).append(students);
+        // 第二次追加的表头按起始行平移复制
+        Sheet sheet = excelBuilder.sheet("一年级学生信息");
+        DataFormatter formatter = new DataFormatter();
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 7; col++) {
+                Assert.assertEquals(formatter.formatCellValue(sheet.getRow(row).getCell(col)),
+                        formatter.formatCellValue(sheet.getRow(row + 5).getCell(col)));
+            }
+        }
+        Assert.assertEquals(10, sheet.getNumMergedRegions());
+        for (int i = 0; i < 5; i++) {
+            CellRangeAddress first = sheet.getMergedRegion(i);
+            CellRangeAddress second = sheet.getMergedRegion(i + 5);
+            Assert.assertEquals(first.getFirstRow() + 5, second.getFirstRow());
+            Assert.assertEquals(first.getLastRow() + 5, second.getLastRow());
+            Assert.assertEquals(first.getFirstColumn(), second.getFirstColumn());
+            Assert.assertEquals(first.getLastColumn(), second.getLastColumn());
+        }
+
+        // 各列待插入行不同时逐个单元格写入表头
+        SheetBuilder sheetBuilder = excelBuilder.sheetBuilder("错位");
+        sheetBuilder.append(List.of(new MergedRow("a", "b"))).append(students);
+        sheet = excelBuilder.sheet("错位");
+        Assert.assertEquals("序号", sheet.getRow(1).getCell(0).getStringCellValue());
+        Assert.assertEquals("姓名", sheet.getRow(3).getCell(1).getStringCellValue());
+        excelBuilder.abort();
+    }
+
+    @Test
+    public void templateTest() throws InterruptedException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        ExcelTemplate template = ExcelTemplate.of(ExcelBuilder.ExcelType.XLSX_DIRECT, Student.class);
+        Assert.assertEquals(1, template.idleCount());
+        Workbook pooled = null;
+        for (int i = 0; i < 3; i++) {
+            ExcelBuilder excelBuilder = template.newBuilder();
+            Assert.assertEquals(0, template.idleCount());
+            // 表头及数据样式已预先创建，命中统计只包含当前builder
+            Assert.assertEquals(2, excelBuilder.styleRegistry().styleCount());
+            Assert.assertEquals(0, excelBuilder.styleRegistry().hitCount());
+            Assert.assertEquals(0, excelBuilder.styleRegistry().missCount());
+            if (pooled != null) {
+                Assert.assertSame(pooled, excelBuilder.workbook());
+            }
+            pooled = excelBuilder.workbook();
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            Assert.assertTrue(excelBuilder.styleRegistry().hitCount() > 0);
+            Assert.assertEquals(0, excelBuilder.styleRegistry().missCount());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+            excelBuilder.abort();
+            // 重复关闭只归还一次
+            Assert.assertEquals(1, template.idleCount());
+
+            List<Student> read = new ArrayList<>();
+            new ExcelReader<>(Student.class).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+            Assert.assertEquals(students, read);
+        }
+
+        // 同时使用的builder各自持有workbook
+        ExcelBuilder first = template.newBuilder();
+        ExcelBuilder second = template.newBuilder();
+        Assert.assertNotSame(first.workbook(), second.workbook());
+        first.abort();
+        second.abort();
+        Assert.assertEquals(2, template.idleCount());
+
+        // 同时归还时池中的workbook数不超过上限
+        ExcelTemplate bounded = ExcelTemplate.of(ExcelBuilder.ExcelType.XLSX_DIRECT, StringStrategy.DEFAULT, 2, Student.class);
+        List<ExcelBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            builders.add(bounded.newBuilder());
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(builders.size());
+        for (ExcelBuilder builder : builders) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                builder.abort();
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        Assert.assertEquals(2, bounded.idleCount());
+
+        // 其他类型的workbook含有数据，不支持模板
+        for (ExcelBuilder.ExcelType excelType : new ExcelBuilder.ExcelType[]{ExcelBuilder.ExcelType.XLS,
+                ExcelBuilder.ExcelType.XLSX, ExcelBuilder.ExcelType.XLSX_STREAMING}) {
+            Assert.assertThrows(IllegalArgumentException.class, () -> ExcelTemplate.of(excelType, Student.class));
+        }
+
+        // 不复用时每次新建workbook
+        ExcelTemplate unpooled = ExcelTemplate.of(ExcelBuilder.ExcelType.XLSX_DIRECT, StringStrategy.DEFAULT, 0, Student.class);
+        ExcelBuilder direct = unpooled.newBuilder();
+        Assert.assertEquals(ExcelBuilder.ExcelType.XLSX_DIRECT, direct.excelType());
+        Assert.assertNotSame(direct.workbook(), unpooled.newBuilder().workbook());
+        Assert.assertEquals(0, unpooled.idleCount());
+    }
+
+    @Test
+    public void streamingFlushTest() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        Path scratch = Files.createTempDirectory("exsilent-flush-test");
+        for (boolean abort : new boolean[]{false, true}) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_STREAMING, 100, false, StringStrategy.DEFAULT)
+                    .tempDirectory(scratch);
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            // 追加后即写出完整的行，窗口之外的行已刷新到临时文件
+            SXSSFSheet sheet = ((SXSSFWorkbook) excelBuilder.workbook()).getSheet("一年级学生信息");
+            int lastRowNum = sheet.getLastRowNum();
+            Assert.assertEquals(2 + students.size() - 1, lastRowNum);
+            Assert.assertTrue(sheet.getLastFlushedRowNum() >= lastRowNum - 100);
+            for (int row = 0; row <= lastRowNum - 100; row++) {
+                Assert.assertNull(sheet.getRow(row));
+            }
+            Assert.assertNotNull(sheet.getRow(lastRowNum));
+            try (Stream<Path> files = Files.list(scratch)) {
+                Assert.assertEquals(1, files.count());
+            }
+
+            // 写出或放弃后删除临时文件
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            if (abort) {
+                excelBuilder.abort();
+            } else {
+                excelBuilder.writeAndClose(outputStream);
+                List<Student> read = new ArrayList<>();
+                new ExcelReader<>(Student.class).read(new ByteArrayInputStream(outputStream.toByteArray()), read::addAll);
+                Assert.assertEquals(students, read);
+            }
+            try (Stream<Path> files = Files.list(scratch)) {
+                Assert.assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test
+    public void writeToPathTest() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender("男")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        Path dir = Files.createTempDirectory("exsilent-write-test");
+        Path scratch = dir.resolve("scratch");
+        Path target = dir.resolve("students.xlsx");
+        Files.writeString(target, "old");
+        for (ExcelBuilder.ExcelType excelType : List.of(ExcelBuilder.ExcelType.XLSX_STREAMING, ExcelBuilder.ExcelType.XLSX_DIRECT)) {
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType, 100, excelType == ExcelBuilder.ExcelType.XLSX_STREAMING, StringStrategy.DEFAULT)
+                    .tempDirectory(scratch);
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            // 工作表临时文件写入指定目录
+            try (Stream<Path> files = Files.list(scratch)) {
+                Assert.assertEquals(1, files.count());
+            }
+            ExportResult result = excelBuilder.writeTo(target, WriteOptions.builder().bufferSize(4096).fsync(true).build());
+            Assert.assertEquals(Files.size(target), result.getBytesWritten());
+            try (Stream<Path> files = Files.list(scratch)) {
+                Assert.assertEquals(0, files.count());
+            }
+            // 原子替换不留下中间文件
+            try (Stream<Path> files = Files.list(dir)) {
+                Assert.assertEquals(2, files.count());
+            }
+            List<Student> read = new ArrayList<>();
+            new ExcelReader<>(Student.class).read(Files.newInputStream(target), read::addAll);
+            Assert.assertEquals(students, read);
+        }
+
+        // 共享字符串表及未压缩的临时文件同样写入指定目录，未指定目录的builder仍使用POI默认目录
+        ExcelBuilder sst = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_STREAMING, 100, false, StringStrategy.SST)
+                .tempDirectory(scratch);
+        sst.sheetBuilder("一年级学生信息").append(students);
+        ExcelBuilder fallback = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_STREAMING);
+        fallback.sheetBuilder("一年级学生信息").append(students);
+        try (Stream<Path> files = Files.list(scratch)) {
+            Assert.assertEquals(List.of(".xml"), files.map(file -> file.toString().substring(file.toString().lastIndexOf('.'))).toList());
+        }
+        sst.abort();
+        fallback.abort();
+
+        // 写入失败时目标文件保持原样，删除中间文件
+        ExcelBuilder failed = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT).streamTo(OutputStream.nullOutputStream());
+        failed.sheetBuilder("一年级学生信息").append(students);
+        Assert.assertThrows(IllegalStateException.class, () -> failed.tempDirectory(scratch));
+        long size = Files.size(target);
+        Assert.assertThrows(IllegalArgumentException.class, () -> failed.writeTo(target, WriteOptions.DEFAULT));
+        Assert.assertEquals(size, Files.size(target));
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(2, files.count());
+        }
+
+        // 文件无法打开时记录日志，不再以空输出流继续
+        ExcelBuilder missing = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX);
+        missing.sheetBuilder("一年级学生信息").append(students);
+        missing.writeAndClose(dir.resolve("missing").resolve("1.xlsx").toFile());
+        Assert.assertFalse(Files.exists(dir.resolve("missing")));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class MergedRow {
+        @ExcelCell(index = 0)
+        private String a;
+        @ExcelCell(index = 1, rowCount = 3)
+        private String b;
+    }
+
+    /**
+     * 标题位于合并单元格之下：标题从第1列的待插入行开始，覆盖第2列已合并的行
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Titled {
+        @ExcelModule(index = 0)
+        private List<MergedRow> rows;
+        @ExcelModule(index = 1, colCount = 2)
+        private String title;
+    }
 }
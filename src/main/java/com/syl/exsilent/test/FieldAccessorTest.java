@@ -0,0 +1,38 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.util.ExcelUtil;
+import com.syl.exsilent.util.FieldAccessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 字段取值器测试
+ */
+public class FieldAccessorTest {
+
+    @Test
+    public void accessTest() {
+        Student student = Student.builder().index("1").name("张三").age("16").gender("男").grade1("75").grade2("85").grade3("89").build();
+        Assert.assertEquals("张三", ExcelUtil.getFieldVal(student, "name"));
+        Assert.assertEquals("89", FieldAccessor.of(Student.class, "grade3").get(student));
+
+        // record访问方法
+        Assert.assertEquals("李四", ExcelUtil.getFieldVal(new RecordRow("李四", 17), "name"));
+        Assert.assertEquals(17, ExcelUtil.getFieldVal(new RecordRow("李四", 17), "age"));
+
+        // 无getter时直接读取字段
+        Assert.assertEquals("王五", ExcelUtil.getFieldVal(new PlainRow("王五"), "name"));
+        Assert.assertNull(ExcelUtil.getFieldVal(student, "notExists"));
+    }
+
+    record RecordRow(String name, int age) {
+    }
+
+    static class PlainRow {
+        private final String name;
+
+        PlainRow(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExportMetrics;
+import com.syl.exsilent.metrics.ExsilentMetricsAutoConfiguration;
+import com.syl.exsilent.metrics.MicrometerExportMetrics;
+import com.syl.exsilent.web.ExcelDownloads;
+import com.syl.exsilent.web.ExsilentWebAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsTest {
+
+    @Test
+    public void metricsTest() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            students.add(Student.builder().index(String.valueOf(i)).name("学生" + i).age("16").gender(i % 2 == 0 ? "男" : "女")
+                    .grade1("75").grade2("85").grade3("89").build());
+        }
+        for (ExcelBuilder.ExcelType excelType : ExcelBuilder.ExcelType.values()) {
+            MeterRegistry registry = new SimpleMeterRegistry();
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType).metrics(new MicrometerExportMetrics(registry));
+            excelBuilder.sheetBuilder("一年级学生信息").append(students);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelBuilder.writeAndClose(outputStream);
+
+            String type = excelType.name();
+            // 两行表头8个单元格，其中5个合并区域
+            Assert.assertEquals(8 + 2500 * 7, counter(registry, "cells", type), 0);
+            Assert.assertEquals(2 + 2500, counter(registry, "rows", type), 0);
+            Assert.assertEquals(5, counter(registry, "merged.regions", type), 0);
+            Assert.assertTrue(registry.get("exsilent.export.append").tags("sheet", "一年级学生信息", "type", type).timer().count() > 0);
+            Assert.assertTrue(registry.get("exsilent.export.lock.wait").tags("type", type).timer().count() > 0);
+            Assert.assertEquals(1, registry.get("exsilent.export.build").tags("type", type).timer().count());
+            // 表头、数据各一个样式及字体
+            Assert.assertEquals(2, registry.get("exsilent.export.styles").tags("type", type).counter().count(), 0);
+            Assert.assertEquals(2, registry.get("exsilent.export.fonts").tags("type", type).counter().count(), 0);
+            Assert.assertEquals(1, registry.get("exsilent.export.write").tags("type", type).timer().count());
+            Assert.assertEquals(outputStream.size(), registry.get("exsilent.export.bytes").tags("type", type).summary().totalAmount(), 0);
+        }
+    }
+
+    @Test
+    public void autoConfigurationTest() {
+        // 应用声明的MeterRegistry即可激活，无需actuator
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ExsilentMetricsAutoConfiguration.class, ExsilentWebAutoConfiguration.class))
+                .withUserConfiguration(MeterRegistryConfiguration.class)
+                .run(context -> {
+                    MeterRegistry registry = context.getBean(MeterRegistry.class);
+                    Assert.assertTrue(context.getBean(ExportMetrics.class) instanceof MicrometerExportMetrics);
+                    context.getBean(ExcelDownloads.class).excelBody(ExcelBuilder.ExcelType.XLSX_DIRECT,
+                            excelBuilder -> excelBuilder.sheetBuilder("成绩").append(List.of(Student.builder().index("1").build())))
+                            .writeTo(new ByteArrayOutputStream());
+                    Assert.assertEquals(8 + 7, registry.get("exsilent.export.cells").tag("sheet", "成绩").counter().count(), 0);
+
+                    // 不修改全局状态，自行创建的builder未指定时不记录
+                    ExcelBuilder excelBuilder = new ExcelBuilder(ExcelBuilder.ExcelType.XLSX_DIRECT);
+                    excelBuilder.sheetBuilder("其他").append(List.of(Student.builder().index("1").build()));
+                    excelBuilder.abort();
+                    Assert.assertNull(registry.find("exsilent.export.cells").tag("sheet", "其他").counter());
+                });
+
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ExsilentMetricsAutoConfiguration.class, ExsilentWebAutoConfiguration.class))
+                .run(context -> {
+                    Assert.assertTrue(context.getBeansOfType(ExportMetrics.class).isEmpty());
+                    Assert.assertNotNull(context.getBean(ExcelDownloads.class));
+                });
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ExsilentMetricsAutoConfiguration.class))
+                .withUserConfiguration(MeterRegistryConfiguration.class)
+                .withPropertyValues("exsilent.metrics.enabled=false")
+                .run(context -> Assert.assertTrue(context.getBeansOfType(ExportMetrics.class).isEmpty()));
+    }
+
+    private static double counter(MeterRegistry registry, String name, String type) {
+        return registry.get("exsilent.export." + name).tags("sheet", "一年级学生信息", "type", type).counter().count();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class MeterRegistryConfiguration {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.syl.exsilent.test;
+
+import com.syl.exsilent.annontion.ExcelCell;
+import com.syl.exsilent.annontion.ExcelField;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.poi.ss.usermodel.Font;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Score {
+    @ExcelField(index = 0, name = "姓名", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 0)
+    private String name;
+
+    @ExcelField(index = 1, name = "总分", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 1)
+    private Integer total;
+
+    @ExcelField(index = 2, name = "平均分", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 2, format = "0.00")
+    private BigDecimal average;
+
+    @ExcelField(index = 3, name = "是否及格", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 3)
+    private Boolean passed;
+
+    @ExcelField(index = 4, name = "考试日期", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 4)
+    private LocalDate examDate;
+
+    @ExcelField(index = 5, name = "录入时间", fontBold = true, fontColor = Font.COLOR_RED)
+    @ExcelCell(index = 5, format = "yyyy/mm/dd hh:mm")
+    private Date updateTime;
+}
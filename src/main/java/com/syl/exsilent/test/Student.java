@@ -3,12 +3,16 @@ package com.syl.exsilent.test;
 import com.syl.exsilent.annontion.ExcelCell;
 import com.syl.exsilent.annontion.ExcelField;
 import com.syl.exsilent.annontion.ExcelFields;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.apache.poi.ss.usermodel.Font;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Student {
     @ExcelField(index = 0, name = "序号", fontBold = true, fontColor = Font.COLOR_RED, rowCount = 2)
     @ExcelCell(index = 0, font = "华文楷体")
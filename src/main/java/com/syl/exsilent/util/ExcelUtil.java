@@ -2,8 +2,6 @@ package com.syl.exsilent.util;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Method;
-
 /**
  * 工具类
  *
@@ -13,6 +11,7 @@ import java.lang.reflect.Method;
 public class ExcelUtil {
     /**
      * 获取对象字段值
+     * 取值器按类缓存，见{@link FieldAccessor}
      *
      * @param object    对象实例
      * @param fieldName 字段名称
@@ -22,9 +21,11 @@ public class ExcelUtil {
     public static <T> Object getFieldVal(T object, String fieldName) {
         Object val = null;
         try {
-            Class<?> tClass = object.getClass();
-            Method method = tClass.getDeclaredMethod(getGetter(fieldName));
-            val = method.invoke(object);
+            FieldAccessor accessor = FieldAccessor.of(object.getClass(), fieldName);
+            if (accessor == null) {
+                throw new NoSuchFieldException(object.getClass().getName() + "." + fieldName);
+            }
+            val = accessor.get(object);
         } catch (Exception e) {
             log.error("reflect get field value failed", e);
         }
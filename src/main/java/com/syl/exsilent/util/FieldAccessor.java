@@ -0,0 +1,308 @@
+package com.syl.exsilent.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 字段取值器
+ * 按类生成一次并缓存，优先通过LambdaMetafactory将getter编译为Function，
+ * 取值开销与直接调用相当；无getter时（未使用lombok的类）退化为直接读取字段。
+ * setter同样编译为BiConsumer，用于导入时回填字段；record及final字段不可写
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+public final class FieldAccessor {
+    /**
+     * 类取值计划缓存
+     * k-类
+     * v-字段名称与取值器的映射
+     */
+    private static final ClassValue<Map<String, FieldAccessor>> PLANS = new ClassValue<>() {
+        @Override
+        protected Map<String, FieldAccessor> computeValue(Class<?> type) {
+            return compilePlan(type);
+        }
+    };
+
+    /**
+     * 字段名称
+     */
+    private final String fieldName;
+    /**
+     * 字段类型
+     */
+    private final Class<?> fieldType;
+    /**
+     * 编译后的取值函数
+     */
+    private final Function<Object, Object> getter;
+    /**
+     * 编译后的赋值函数，字段不可写时为null
+     */
+    private final BiConsumer<Object, Object> setter;
+
+    private FieldAccessor(String fieldName, Class<?> fieldType, Function<Object, Object> getter,
+                          BiConsumer<Object, Object> setter) {
+        this.fieldName = fieldName;
+        this.fieldType = fieldType;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * 获取类中指定字段的取值器
+     *
+     * @param clazz     类
+     * @param fieldName 字段名称
+     * @return 取值器，字段不存在时返回null
+     */
+    public static FieldAccessor of(Class<?> clazz, String fieldName) {
+        return PLANS.get(clazz).get(fieldName);
+    }
+
+    /**
+     * 获取类中所有字段的取值器
+     *
+     * @param clazz 类
+     * @return 不可修改的字段名称与取值器映射
+     */
+    public static Map<String, FieldAccessor> plan(Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    /**
+     * 读取对象的字段值
+     *
+     * @param object 对象实例
+     * @return 字段值
+     */
+    public Object get(Object object) {
+        return this.getter.apply(object);
+    }
+
+    /**
+     * 设置对象的字段值
+     *
+     * @param object 对象实例
+     * @param value  字段值，基本类型字段不可为null
+     */
+    public void set(Object object, Object value) {
+        if (this.setter == null) {
+            throw new UnsupportedOperationException("field " + this.fieldName + " is not writable");
+        }
+        this.setter.accept(object, value);
+    }
+
+    /**
+     * @return 字段是否可写
+     */
+    public boolean isWritable() {
+        return this.setter != null;
+    }
+
+    public String getFieldName() {
+        return this.fieldName;
+    }
+
+    public Class<?> getFieldType() {
+        return this.fieldType;
+    }
+
+    /**
+     * 生成类的取值计划，仅在首次访问该类时执行
+     *
+     * @param clazz 类
+     * @return 字段名称与取值器映射
+     */
+    private static Map<String, FieldAccessor> compilePlan(Class<?> clazz) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            log.warn("private lookup of {} denied, fallback to public lookup", clazz.getName());
+            lookup = MethodHandles.publicLookup();
+        }
+        Map<String, FieldAccessor> accessors = new HashMap<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            Function<Object, Object> getter = compile(lookup, clazz, field);
+            if (getter != null) {
+                BiConsumer<Object, Object> setter = clazz.isRecord() ? null : compileSetter(lookup, clazz, field);
+                accessors.put(field.getName(), new FieldAccessor(field.getName(), field.getType(), getter, setter));
+            }
+        }
+        return Collections.unmodifiableMap(accessors);
+    }
+
+    /**
+     * 编译字段的取值函数
+     * getter/record访问方法 -> LambdaMetafactory，失败时 -> MethodHandle，无访问方法时 -> 字段MethodHandle
+     *
+     * @param lookup lookup
+     * @param clazz  类
+     * @param field  字段
+     * @return 取值函数，无法访问时返回null
+     */
+    private static Function<Object, Object> compile(MethodHandles.Lookup lookup, Class<?> clazz, Field field) {
+        Method accessor = findAccessor(clazz, field);
+        if (accessor != null) {
+            try {
+                MethodHandle handle = lookup.unreflect(accessor);
+                try {
+                    return metafactory(lookup, handle);
+                } catch (Throwable e) {
+                    log.debug("lambda metafactory failed for {}.{}, fallback to method handle", clazz.getName(), field.getName(), e);
+                    return invoker(handle);
+                }
+            } catch (IllegalAccessException e) {
+                log.debug("{}.{} is not accessible, fallback to field access", clazz.getName(), accessor.getName(), e);
+            }
+        }
+        try {
+            return invoker(lookup.unreflectGetter(field));
+        } catch (IllegalAccessException e) {
+            log.warn("field {}.{} is not accessible", clazz.getName(), field.getName());
+            return null;
+        }
+    }
+
+    /**
+     * 编译字段的赋值函数
+     * setXxx -> LambdaMetafactory，失败时 -> MethodHandle，无setter时 -> 非final字段MethodHandle
+     *
+     * @param lookup lookup
+     * @param clazz  类
+     * @param field  字段
+     * @return 赋值函数，不可写时返回null
+     */
+    private static BiConsumer<Object, Object> compileSetter(MethodHandles.Lookup lookup, Class<?> clazz, Field field) {
+        Method mutator = findMethod(clazz, "set" + ExcelUtil.capitalizeFirst(field.getName()), field.getType());
+        if (mutator != null) {
+            try {
+                MethodHandle handle = lookup.unreflect(mutator);
+                try {
+                    return setterMetafactory(lookup, handle);
+                } catch (Throwable e) {
+                    log.debug("lambda metafactory failed for {}.{}, fallback to method handle", clazz.getName(), field.getName(), e);
+                    return setterInvoker(handle);
+                }
+            } catch (IllegalAccessException e) {
+                log.debug("{}.{} is not accessible, fallback to field access", clazz.getName(), mutator.getName(), e);
+            }
+        }
+        if (Modifier.isFinal(field.getModifiers())) {
+            return null;
+        }
+        try {
+            return setterInvoker(lookup.unreflectSetter(field));
+        } catch (IllegalAccessException e) {
+            log.debug("field {}.{} is not writable", clazz.getName(), field.getName());
+            return null;
+        }
+    }
+
+    /**
+     * 查找字段的访问方法：record访问方法、getXxx、boolean字段的isXxx
+     *
+     * @param clazz 类
+     * @param field 字段
+     * @return 访问方法，不存在时返回null
+     */
+    private static Method findAccessor(Class<?> clazz, Field field) {
+        if (clazz.isRecord()) {
+            for (RecordComponent component : clazz.getRecordComponents()) {
+                if (component.getName().equals(field.getName())) {
+                    return component.getAccessor();
+                }
+            }
+        }
+        Method method = findMethod(clazz, ExcelUtil.getGetter(field.getName()));
+        if (method == null && field.getType() == boolean.class) {
+            method = findMethod(clazz, "is" + ExcelUtil.capitalizeFirst(field.getName()));
+        }
+        return method;
+    }
+
+    private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = clazz.getDeclaredMethod(name, parameterTypes);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 通过LambdaMetafactory将方法句柄编译为Function实例
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> metafactory(MethodHandles.Lookup lookup, MethodHandle handle) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup,
+                "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                handle.type().wrap());
+        return (Function<Object, Object>) site.getTarget().invokeExact();
+    }
+
+    /**
+     * 通过LambdaMetafactory将setter方法句柄编译为BiConsumer实例
+     * setter可能返回当前对象（链式setter），返回值被丢弃
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setterMetafactory(MethodHandles.Lookup lookup, MethodHandle handle) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup,
+                "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                handle.type().wrap().changeReturnType(void.class));
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+    }
+
+    /**
+     * 将setter方法句柄包装为BiConsumer实例
+     */
+    private static BiConsumer<Object, Object> setterInvoker(MethodHandle handle) {
+        MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (object, value) -> {
+            try {
+                generic.invokeExact(object, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * 将方法句柄包装为Function实例
+     */
+    private static Function<Object, Object> invoker(MethodHandle handle) {
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return object -> {
+            try {
+                return generic.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package com.syl.exsilent.web;
+
+import com.syl.exsilent.builder.CsvBuilder;
+import com.syl.exsilent.builder.ExcelBuilder;
+import com.syl.exsilent.builder.ExcelBuilder.ExcelType;
+import com.syl.exsilent.builder.ExportMetrics;
+import com.syl.exsilent.builder.ExportResult;
+import lombok.Lombok;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式下载
+ * 控制器返回的StreamingResponseBody在MVC异步线程中执行，请求线程立即释放；响应头在生成数据前发送，
+ * 不设置Content-Length，以分块传输输出：
+ * 1.直写类型通过{@link ExcelBuilder#streamTo}边生成边输出第一个工作表，首字节时间与数据量无关；
+ * 2.csv/tsv逐条写入输出；
+ * 3.其他类型不是边生成边输出：数据全部写入builder并构建完成后才写入响应输出流，xls/xlsx在内存中持有整个workbook，
+ * 流式xlsx的数据行写入临时文件，首字节时间随数据量增长，连接断开要到输出时才能发现，大数据量下载应使用直写类型。
+ * 直写类型及csv/tsv下载连接断开后写入响应时抛出IOException，数据生成随之终止，临时文件被删除。
+ * 响应输出流结束时只刷新不关闭，由servlet容器关闭。
+ * 大数据量导出需通过spring.mvc.async.request-timeout延长异步请求超时时间
+ *
+ * @since 2023.6.23
+ */
+@Slf4j
+public class ExcelDownloads {
+    /**
+     * xls的内容类型
+     */
+    public static final MediaType XLS = MediaType.parseMediaType("application/vnd.ms-excel");
+    /**
+     * xlsx的内容类型
+     */
+    public static final MediaType XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    /**
+     * csv的内容类型
+     */
+    public static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    /**
+     * tsv的内容类型
+     */
+    public static final MediaType TSV = MediaType.parseMediaType("text/tab-separated-values;charset=UTF-8");
+    /**
+     * 下载创建的builder使用的导出指标
+     */
+    private final ExportMetrics metrics;
+
+    /**
+     * 构造方法，不记录导出指标
+     */
+    public ExcelDownloads() {
+        this(ExportMetrics.NOOP);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param metrics 下载创建的builder使用的导出指标
+     */
+    public ExcelDownloads(@NonNull ExportMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 生成excel下载响应
+     *
+     * @param fileName  下载文件名，按RFC 5987编码
+     * @param excelType excel类型，直写类型边生成边输出，其他类型构建完成后才开始输出
+     * @param content   向builder中写入数据，在MVC异步线程中执行
+     * @return 下载响应
+     */
+    public ResponseEntity<StreamingResponseBody> excel(@NonNull String fileName, @NonNull ExcelType excelType,
+                                                       @NonNull ExcelContent content) {
+        return ResponseEntity.ok()
+                .headers(headers(fileName))
+                .contentType(excelType == ExcelType.XLS ? XLS : XLSX)
+                .body(this.excelBody(excelType, content));
+    }
+
+    /**
+     * 生成csv/tsv下载响应，按UTF-8编码
+     *
+     * @param fileName 下载文件名，按RFC 5987编码
+     * @param format   文件格式
+     * @param content  向builder中写入数据，在MVC异步线程中执行
+     * @return 下载响应
+     */
+    public ResponseEntity<StreamingResponseBody> csv(@NonNull String fileName, @NonNull CsvBuilder.Format format,
+                                                     @NonNull CsvContent content) {
+        return ResponseEntity.ok()
+                .headers(headers(fileName))
+                .contentType(format == CsvBuilder.Format.CSV ? CSV : TSV)
+                .body(this.csvBody(format, content));
+    }
+
+    /**
+     * 生成excel响应体
+     *
+     * @param excelType excel类型
+     * @param content   向builder中写入数据
+     * @return 响应体
+     */
+    public StreamingResponseBody excelBody(@NonNull ExcelType excelType, @NonNull ExcelContent content) {
+        return servletOutputStream -> {
+            OutputStream outputStream = keepOpen(servletOutputStream);
+            ExcelBuilder excelBuilder = new ExcelBuilder(excelType).metrics(this.metrics);
+            if (excelType == ExcelType.XLSX_DIRECT) {
+                excelBuilder.streamTo(outputStream);
+            }
+            // 立即发送响应头
+            outputStream.flush();
+            try {
+                content.write(excelBuilder);
+            } catch (Exception e) {
+                excelBuilder.abort();
+                log.debug("excel download aborted", e);
+                throw Lombok.sneakyThrow(e);
+            }
+            ExportResult result = excelBuilder.writeTo(outputStream);
+            log.debug("excel download finished, {} bytes in {} ms", result.getBytesWritten(), result.getDuration().toMillis());
+        };
+    }
+
+    /**
+     * 生成csv/tsv响应体
+     *
+     * @param format  文件格式
+     * @param content 向builder中写入数据
+     * @return 响应体
+     */
+    public StreamingResponseBody csvBody(@NonNull CsvBuilder.Format format, @NonNull CsvContent content) {
+        return servletOutputStream -> {
+            OutputStream outputStream = keepOpen(servletOutputStream);
+            outputStream.flush();
+            CsvBuilder csvBuilder = new CsvBuilder(format, Channels.newChannel(outputStream));
+            try {
+                content.write(csvBuilder);
+            } catch (Exception e) {
+                log.debug("csv download aborted", e);
+                throw Lombok.sneakyThrow(e);
+            }
+            csvBuilder.close();
+        };
+    }
+
+    /**
+     * 包装响应输出流，builder写入完成后关闭时只刷新，响应输出流由servlet容器关闭
+     *
+     * @param outputStream 响应输出流
+     * @return 关闭时不关闭响应输出流的输出流
+     */
+    private static OutputStream keepOpen(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                this.flush();
+            }
+        };
+    }
+
+    private static HttpHeaders headers(String fileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build());
+        headers.setCacheControl("no-store");
+        return headers;
+    }
+
+    /**
+     * excel数据生成
+     */
+    @FunctionalInterface
+    public interface ExcelContent {
+        /**
+         * 向builder中写入数据，无需构建或输出
+         *
+         * @param excelBuilder excel builder
+         * @throws Exception 生成失败，或直写类型的下载连接已断开
+         */
+        void write(ExcelBuilder excelBuilder) throws Exception;
+    }
+
+    /**
+     * csv/tsv数据生成
+     */
+    @FunctionalInterface
+    public interface CsvContent {
+        /**
+         * 向builder中写入数据，无需关闭
+         *
+         * @param csvBuilder csv builder
+         * @throws IOException 下载连接已断开
+         * @throws Exception   生成失败
+         */
+        void write(CsvBuilder csvBuilder) throws Exception;
+    }
+}
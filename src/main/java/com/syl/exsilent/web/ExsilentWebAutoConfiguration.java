@@ -0,0 +1,28 @@
+package com.syl.exsilent.web;
+
+import com.syl.exsilent.builder.ExportMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * servlet web应用的流式下载自动配置
+ * 存在ExportMetrics bean时下载创建的builder记录导出指标
+ *
+ * @since 2023.6.23
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(StreamingResponseBody.class)
+public class ExsilentWebAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExcelDownloads excelDownloads(ObjectProvider<ExportMetrics> exportMetrics) {
+        return new ExcelDownloads(exportMetrics.getIfAvailable(() -> ExportMetrics.NOOP));
+    }
+}